@@ -0,0 +1,140 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import models.Project;
+import models.Task;
+import repository.ProjectRepository;
+import repository.UserRepository;
+import services.AuthService;
+import services.ReportService;
+import services.RiskAISuggester;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs every benchmark against the dataset in -Dsmartpm.data.dir inside a
+ * fresh JVM (repositories are static, so each dataset size gets its own
+ * process, like a JMH fork). Prints one "RESULT {json}" line per benchmark.
+ *
+ * Usage: BenchmarkFork <tasks> <warmups> <iterations> <iterationMillis> [filter]
+ */
+public class BenchmarkFork {
+
+    public static void main(String[] args) throws Exception {
+        int tasks = Integer.parseInt(args[0]);
+        Measurement m = new Measurement(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+        String filter = args.length > 4 ? args[4] : "";
+
+        UserRepository.loadAll();
+        ProjectRepository.loadAll();
+
+        List<Project> projects = new ArrayList<>(ProjectRepository.getAll());
+        List<Task> allTasks = new ArrayList<>();
+        for (Project p : projects) allTasks.addAll(p.getTasks());
+        int projectCount = projects.size();
+        Gson gson = new Gson();
+
+        List<Measurement.Result> results = new ArrayList<>();
+
+        if (matches("ProjectRepository.loadAll", filter)) {
+            results.add(m.run("ProjectRepository.loadAll", i -> {
+                ProjectRepository.reload();
+                return ProjectRepository.getAll().size();
+            }));
+            projects = new ArrayList<>(ProjectRepository.getAll());
+            allTasks.clear();
+            for (Project p : projects) allTasks.addAll(p.getTasks());
+        }
+
+        if (matches("ProjectRepository.saveAll", filter)) {
+            results.add(m.run("ProjectRepository.saveAll", i -> {
+                ProjectRepository.saveAll();
+                ProjectRepository.awaitDurable();
+                return null;
+            }));
+        }
+
+        if (matches("UserRepository.loadAll", filter)) {
+            results.add(m.run("UserRepository.loadAll", i -> {
+                UserRepository.loadAll();
+                return UserRepository.getAll().size();
+            }));
+        }
+
+        final List<Project> ps = projects;
+        final List<Task> ts = allTasks;
+
+        if (matches("ProjectRepository.findById", filter)) {
+            results.add(m.run("ProjectRepository.findById", i ->
+                    ProjectRepository.findById(DatasetGenerator.projectId(i % projectCount))));
+        }
+
+        if (matches("ProjectRepository.getByManagerId", filter)) {
+            results.add(m.run("ProjectRepository.getByManagerId", i ->
+                    ProjectRepository.getByManagerId("mgr-" + (i % DatasetGenerator.MANAGERS))));
+        }
+
+        if (matches("ProjectRepository.search", filter)) {
+            results.add(m.run("ProjectRepository.search", i ->
+                    ProjectRepository.search("project " + (i % projectCount), 200)));
+        }
+
+        if (matches("AuthService.login", filter)) {
+            results.add(m.run("AuthService.login", i -> {
+                int member = i % DatasetGenerator.MEMBERS;
+                return AuthService.login(DatasetGenerator.memberEmail(member), DatasetGenerator.memberPassword(member));
+            }));
+        }
+
+        if (matches("Task.setProgress", filter) && !ts.isEmpty()) {
+            results.add(m.run("Task.setProgress", i -> {
+                Task t = ts.get(i % ts.size());
+                t.setProgress((i * 5) % 100);
+                return t;
+            }));
+        }
+
+        if (matches("Project.updateProgress", filter)) {
+            results.add(m.run("Project.updateProgress", i -> {
+                Project p = ps.get(i % ps.size());
+                p.updateProgress();
+                return p.getProgress();
+            }));
+        }
+
+        if (matches("RiskAISuggester.computeRisk", filter)) {
+            results.add(m.run("RiskAISuggester.computeRisk", i ->
+                    RiskAISuggester.computeRisk(ps.get(i % ps.size()))));
+        }
+
+        if (matches("RiskAISuggester.suggest", filter)) {
+            results.add(m.run("RiskAISuggester.suggest", i ->
+                    RiskAISuggester.suggest(ps.get(i % ps.size()))));
+        }
+
+        if (matches("RiskAISuggester.scorePortfolio", filter)) {
+            results.add(m.run("RiskAISuggester.scorePortfolio", i ->
+                    RiskAISuggester.scorePortfolio(ps)));
+        }
+
+        if (matches("ReportService.writeAll", filter)) {
+            results.add(m.run("ReportService.writeAll", i -> {
+                ReportService.write(ps, ReportService.Format.values()[i % 3], Writer.nullWriter());
+                return null;
+            }));
+        }
+
+        for (Measurement.Result r : results) {
+            System.out.println("RESULT " + gson.toJson(r));
+        }
+        System.out.flush();
+        ProjectRepository.shutdown();
+        System.exit(0);
+    }
+
+    private static boolean matches(String benchmark, String filter) {
+        return filter.isEmpty() || benchmark.contains(filter);
+    }
+}
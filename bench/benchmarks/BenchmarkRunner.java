@@ -0,0 +1,132 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless benchmark harness for the repositories, models and risk scoring.
+ * For each dataset size it generates a synthetic data directory, runs
+ * BenchmarkFork in a separate JVM and collects the results into a JSON file
+ * shaped like JMH's -rf json output, so runs from two builds can be compared.
+ *
+ * Options (all optional):
+ *   --sizes=100,10000,100000,1000000   number of tasks per dataset
+ *   --warmup=3 --iterations=5 --time=1000   iterations and ms per iteration
+ *   --filter=findById                   only run benchmarks containing this text
+ *   --out=bench-results.json            result file
+ *   --jvmArgs="-Dsmartpm.journal=true"  extra options for the forked JVMs
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String sizes = "100,10000,100000,1000000";
+        int warmup = 3, iterations = 5;
+        long time = 1000;
+        String filter = "";
+        String out = "bench-results.json";
+        String jvmArgs = "";
+
+        for (String a : args) {
+            String value = a.substring(a.indexOf('=') + 1);
+            if (a.startsWith("--sizes=")) sizes = value;
+            else if (a.startsWith("--warmup=")) warmup = Integer.parseInt(value);
+            else if (a.startsWith("--iterations=")) iterations = Integer.parseInt(value);
+            else if (a.startsWith("--time=")) time = Long.parseLong(value);
+            else if (a.startsWith("--filter=")) filter = value;
+            else if (a.startsWith("--out=")) out = value;
+            else if (a.startsWith("--jvmArgs=")) jvmArgs = value;
+            else {
+                System.err.println("Unknown option: " + a);
+                System.exit(2);
+            }
+        }
+
+        Gson gson = new Gson();
+        JsonArray report = new JsonArray();
+
+        for (String size : sizes.split(",")) {
+            int tasks = Integer.parseInt(size.trim());
+            Path dir = Files.createTempDirectory("smartpm-bench-" + tasks + "-");
+            System.out.println("# Generating dataset with " + tasks + " tasks in " + dir);
+            DatasetGenerator.generate(dir, tasks);
+
+            List<String> cmd = new ArrayList<>();
+            cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add("-Dsmartpm.data.dir=" + dir);
+            for (String opt : jvmArgs.split("\\s+")) if (!opt.isBlank()) cmd.add(opt);
+            cmd.add(BenchmarkFork.class.getName());
+            cmd.add(String.valueOf(tasks));
+            cmd.add(String.valueOf(warmup));
+            cmd.add(String.valueOf(iterations));
+            cmd.add(String.valueOf(time));
+            cmd.add(filter);
+
+            Process fork = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(fork.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    if (!line.startsWith("RESULT ")) continue;
+                    Measurement.Result res = gson.fromJson(line.substring(7), Measurement.Result.class);
+                    report.add(toJmhJson(res, tasks, warmup, iterations, jvmArgs));
+                    System.out.printf("%-36s tasks=%-8d %12.3f +- %.3f us/op%n", res.benchmark, tasks, res.score, res.scoreError);
+                }
+            }
+            if (fork.waitFor() != 0) System.err.println("Fork for " + tasks + " tasks exited with " + fork.exitValue());
+
+            deleteRecursively(dir);
+        }
+
+        try (Writer w = Files.newBufferedWriter(Path.of(out), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(report, w);
+        }
+        System.out.println("# Results written to " + out);
+    }
+
+    private static JsonObject toJmhJson(Measurement.Result res, int tasks, int warmup, int iterations, String jvmArgs) {
+        JsonObject o = new JsonObject();
+        o.addProperty("benchmark", res.benchmark);
+        o.addProperty("mode", "avgt");
+        o.addProperty("threads", 1);
+        o.addProperty("forks", 1);
+        o.addProperty("jvmArgs", jvmArgs);
+        o.addProperty("warmupIterations", warmup);
+        o.addProperty("measurementIterations", iterations);
+
+        JsonObject params = new JsonObject();
+        params.addProperty("tasks", String.valueOf(tasks));
+        o.add("params", params);
+
+        JsonObject metric = new JsonObject();
+        metric.addProperty("score", res.score);
+        metric.addProperty("scoreError", res.scoreError);
+        metric.addProperty("scoreUnit", "us/op");
+        JsonArray raw = new JsonArray();
+        JsonArray fork = new JsonArray();
+        res.rawData.forEach(fork::add);
+        raw.add(fork);
+        metric.add("rawData", raw);
+        o.add("primaryMetric", metric);
+        return o;
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (var walk = Files.walk(dir)) {
+            walk.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package benchmarks;
+
+import models.Project;
+import models.Task;
+import models.User;
+import repository.ProjectChange;
+import repository.ProjectRepository;
+import repository.UserRepository;
+import repository.WorkloadIndex;
+import services.AuthService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test for the repositories under concurrent readers and writers.
+ * Writer threads add projects and tasks, update progress, move projects
+ * between managers, remove projects and register users, while reader threads
+ * iterate getAll() and run lookups, searches and workload queries. Then the
+ * writer threads race to register the same email, round after round.
+ * Afterwards it checks that every thread finished without an exception, that
+ * each contended email was registered exactly once, that project
+ * and user counts match the operations performed, that each project's
+ * progress equals the average of its tasks, that every lookup agrees with
+ * the project list, that change listeners saw every addition and removal
+ * and that a reload from disk sees the same projects.
+ *
+ * Generates a small dataset in a temporary directory unless
+ * -Dsmartpm.data.dir is given. Exits with status 1 if a check fails.
+ *
+ * Options (all optional):
+ *   --writers=4 --readers=4   thread counts
+ *   --ops=2000                operations per writer thread
+ */
+public class ConcurrencyStress {
+
+    private static final Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    public static void main(String[] args) throws Exception {
+        int writers = 4, readers = 4, ops = 2000;
+        for (String a : args) {
+            String value = a.substring(a.indexOf('=') + 1);
+            if (a.startsWith("--writers=")) writers = Integer.parseInt(value);
+            else if (a.startsWith("--readers=")) readers = Integer.parseInt(value);
+            else if (a.startsWith("--ops=")) ops = Integer.parseInt(value);
+            else {
+                System.err.println("Unknown option: " + a);
+                System.exit(2);
+            }
+        }
+
+        // Must be set before the repositories are first touched
+        if (System.getProperty("smartpm.data.dir") == null) {
+            Path dir = Files.createTempDirectory("smartpm-stress-");
+            DatasetGenerator.generate(dir, 2000);
+            System.setProperty("smartpm.data.dir", dir.toString());
+            System.out.println("# Dataset in " + dir);
+        }
+
+        UserRepository.loadAll();
+        ProjectRepository.loadAll();
+        int initialProjects = ProjectRepository.getAll().size();
+        int initialUsers = UserRepository.getAll().size();
+
+        AtomicInteger addedEvents = new AtomicInteger();
+        AtomicInteger removedEvents = new AtomicInteger();
+        ProjectRepository.addChangeListener(c -> {
+            if (c.getType() == ProjectChange.Type.PROJECT_ADDED) addedEvents.incrementAndGet();
+            if (c.getType() == ProjectChange.Type.PROJECT_REMOVED) removedEvents.incrementAndGet();
+        });
+
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger registered = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        final int opsPerWriter = ops;
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads.add(thread("writer-" + w, start, () -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                List<Project> mine = new ArrayList<>();
+                for (int i = 0; i < opsPerWriter; i++) {
+                    int op = rnd.nextInt(100);
+                    if (op < 15 || mine.isEmpty()) {
+                        Project p = new Project("stress-" + writer + "-" + i, "Stress " + writer + "-" + i,
+                                "Created by writer " + writer, "2030-01-01", "cli-" + rnd.nextInt(DatasetGenerator.CLIENTS),
+                                "mgr-" + rnd.nextInt(DatasetGenerator.MANAGERS));
+                        ProjectRepository.add(p);
+                        mine.add(p);
+                        added.incrementAndGet();
+                    } else if (op < 45) {
+                        Project p = mine.get(rnd.nextInt(mine.size()));
+                        ProjectRepository.addTask(p, new Task("task " + i, "stress task " + i,
+                                "mem-" + rnd.nextInt(DatasetGenerator.MEMBERS), false));
+                    } else if (op < 80) {
+                        // Shared projects too, so several threads update the same tasks
+                        List<Project> all = ProjectRepository.getAll();
+                        Project p = all.get(rnd.nextInt(all.size()));
+                        List<Task> tasks = new ArrayList<>(p.getTasks());
+                        if (tasks.isEmpty()) continue;
+                        Task t = tasks.get(rnd.nextInt(tasks.size()));
+                        if (rnd.nextBoolean()) t.setProgress(rnd.nextInt(101));
+                        else t.setCompleted(rnd.nextBoolean());
+                        ProjectRepository.updateProjectForTask(t);
+                    } else if (op < 90) {
+                        Project p = mine.get(rnd.nextInt(mine.size()));
+                        p.setManagerId("mgr-" + rnd.nextInt(DatasetGenerator.MANAGERS));
+                        ProjectRepository.updateProject(p);
+                    } else if (op < 97) {
+                        Project p = mine.remove(rnd.nextInt(mine.size()));
+                        if (ProjectRepository.remove(p)) removed.incrementAndGet();
+                        else failures.add("remove() of " + p.getId() + " returned false");
+                    } else {
+                        String email = "stress" + writer + "-" + i + "@bench.local";
+                        if (AuthService.register("Stress " + writer, email, "secret1", "MEMBER")) {
+                            registered.incrementAndGet();
+                        } else {
+                            failures.add("register() of new email " + email + " returned false");
+                        }
+                    }
+                }
+            }));
+        }
+
+        for (int r = 0; r < readers; r++) {
+            threads.add(thread("reader-" + r, start, () -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (writing.get()) {
+                    List<Project> all = ProjectRepository.getAll();
+                    double sum = 0;
+                    for (Project p : all) sum += p.getProgress();
+                    if (sum < 0) failures.add("negative total progress");
+
+                    Project p = all.get(rnd.nextInt(all.size()));
+                    ProjectRepository.findById(p.getId());
+                    for (Project m : ProjectRepository.getByManagerId("mgr-" + rnd.nextInt(DatasetGenerator.MANAGERS))) {
+                        if (m == null) failures.add("null project in manager bucket");
+                    }
+                    ProjectRepository.search("stress " + rnd.nextInt(10), 20);
+                    WorkloadIndex.leastBusyMemberId();
+                    for (User u : UserRepository.getAll()) {
+                        if (u == null) failures.add("null user");
+                    }
+                    UserRepository.getMemberById("mem-" + rnd.nextInt(DatasetGenerator.MEMBERS));
+                }
+            }));
+        }
+
+        long t0 = System.nanoTime();
+        for (Thread t : threads) t.start();
+        start.countDown();
+        for (int i = 0; i < writers; i++) threads.get(i).join();
+        writing.set(false);
+        for (Thread t : threads) t.join();
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        System.out.printf("# %d writers x %d ops, %d readers: %d ms (%d added, %d removed, %d registered)%n",
+                writers, ops, readers, ms, added.get(), removed.get(), registered.get());
+
+        // Every writer registers the same email at once; exactly one may succeed
+        final int rounds = 200;
+        for (int round = 0; round < rounds; round++) {
+            String email = "contended-" + round + "@bench.local";
+            AtomicInteger succeeded = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> racers = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                racers.add(thread("racer-" + w, go, () -> {
+                    if (AuthService.register("Racer", email, "secret1", "MEMBER")) succeeded.incrementAndGet();
+                }));
+            }
+            for (Thread t : racers) t.start();
+            go.countDown();
+            for (Thread t : racers) t.join();
+            check(succeeded.get() == 1, "register() of " + email + " succeeded " + succeeded.get() + " times");
+            registered.addAndGet(succeeded.get());
+        }
+        System.out.printf("# %d rounds of %d concurrent registrations of one email%n", rounds, writers);
+
+        // ----- Checks -----
+        List<Project> all = ProjectRepository.getAll();
+        check(all.size() == initialProjects + added.get() - removed.get(),
+                "project count " + all.size() + ", expected " + (initialProjects + added.get() - removed.get()));
+        check(UserRepository.getAll().size() == initialUsers + registered.get(),
+                "user count " + UserRepository.getAll().size() + ", expected " + (initialUsers + registered.get()));
+
+        check(addedEvents.get() == added.get(), addedEvents.get() + " PROJECT_ADDED events for " + added.get() + " additions");
+        check(removedEvents.get() == removed.get(), removedEvents.get() + " PROJECT_REMOVED events for " + removed.get() + " removals");
+
+        for (Project p : all) {
+            check(ProjectRepository.findById(p.getId()) == p, "findById(" + p.getId() + ") disagrees with getAll()");
+            List<Task> tasks = p.getTasks();
+            double expected = 0;
+            int completed = 0;
+            for (Task t : tasks) {
+                expected += t.getProgress();
+                if (t.isCompleted()) completed++;
+            }
+            expected = tasks.isEmpty() ? 0 : expected / tasks.size();
+            check(Math.abs(p.getProgress() - expected) < 1e-6,
+                    p.getId() + " progress " + p.getProgress() + ", tasks average " + expected);
+            check(p.getCompletedTaskCount() == completed,
+                    p.getId() + " completed count " + p.getCompletedTaskCount() + ", tasks say " + completed);
+        }
+
+        ProjectRepository.awaitDurable();
+        ProjectRepository.reload();
+        check(ProjectRepository.getAll().size() == all.size(),
+                "reload found " + ProjectRepository.getAll().size() + " projects, expected " + all.size());
+
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            failures.stream().limit(20).forEach(f -> System.out.println("FAIL: " + f));
+            System.out.println(failures.size() + " failure(s)");
+            System.exit(1);
+        }
+    }
+
+    private static Thread thread(String name, CountDownLatch start, Runnable body) {
+        return new Thread(() -> {
+            try {
+                start.await();
+                body.run();
+            } catch (Throwable e) {
+                failures.add(name + ": " + e);
+                e.printStackTrace();
+            }
+        }, name);
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) failures.add(message);
+    }
+}
@@ -0,0 +1,99 @@
+package benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a synthetic users.json / projects.json pair of a given size,
+ * streamed so even the 1M-task dataset never sits in memory.
+ */
+public class DatasetGenerator {
+
+    public static final int TASKS_PER_PROJECT = 10;
+    public static final int MEMBERS = 200;
+    public static final int MANAGERS = 20;
+    public static final int CLIENTS = 50;
+
+    public static void generate(Path dir, int tasks) throws IOException {
+        Files.createDirectories(dir);
+        writeUsers(dir.resolve("users.json"));
+        writeProjects(dir.resolve("projects.json"), tasks);
+    }
+
+    public static int projectCount(int tasks) {
+        return Math.max(1, tasks / TASKS_PER_PROJECT);
+    }
+
+    public static String projectId(int i) { return "prj-" + i; }
+    public static String memberEmail(int i) { return "member" + i + "@bench.local"; }
+    public static String memberPassword(int i) { return "pass" + i; }
+
+    private static void writeUsers(Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonWriter out = new JsonWriter(w)) {
+            out.setIndent("  ");
+            out.beginArray();
+            user(out, "adm-1", "Bench Admin", "admin@bench.local", "admin123", "ADMIN");
+            for (int i = 0; i < MANAGERS; i++) user(out, "mgr-" + i, "Manager " + i, "manager" + i + "@bench.local", "mgr123", "MANAGER");
+            for (int i = 0; i < MEMBERS; i++) user(out, "mem-" + i, "Member " + i, memberEmail(i), memberPassword(i), "MEMBER");
+            for (int i = 0; i < CLIENTS; i++) user(out, "cli-" + i, "Client " + i, "client" + i + "@bench.local", "client1", "CLIENT");
+            out.endArray();
+        }
+    }
+
+    private static void user(JsonWriter out, String id, String name, String email, String password, String role) throws IOException {
+        out.beginObject();
+        out.name("id").value(id);
+        out.name("name").value(name);
+        out.name("email").value(email);
+        out.name("password").value(password);
+        out.name("role").value(role);
+        out.endObject();
+    }
+
+    private static void writeProjects(Path file, int tasks) throws IOException {
+        int projects = projectCount(tasks);
+        int taskNo = 0;
+
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonWriter out = new JsonWriter(w)) {
+            out.setIndent("  ");
+            out.beginArray();
+            for (int p = 0; p < projects; p++) {
+                out.beginObject();
+                out.name("id").value(projectId(p));
+                out.name("name").value("Benchmark project " + p);
+                out.name("description").value("Synthetic project number " + p + " used for benchmarking");
+                out.name("deadline").value("2026-" + String.format("%02d", 1 + p % 12) + "-15");
+                out.name("clientId").value("cli-" + (p % CLIENTS));
+                out.name("managerId").value("mgr-" + (p % MANAGERS));
+
+                int count = Math.min(TASKS_PER_PROJECT, tasks - taskNo);
+                if (p == projects - 1) count = tasks - taskNo;
+                double sum = 0;
+                out.name("tasks").beginArray();
+                for (int t = 0; t < count; t++, taskNo++) {
+                    double progress = (taskNo * 5) % 105;
+                    sum += Math.min(progress, 100);
+                    out.beginObject();
+                    out.name("id").value("tsk-" + taskNo);
+                    out.name("name").value("Task " + taskNo);
+                    out.name("description").value("Implement part " + t + " of project " + p);
+                    out.name("assignedMemberId").value("mem-" + (taskNo % MEMBERS));
+                    out.name("completed").value(progress >= 100);
+                    out.name("progress").value(Math.min(progress, 100));
+                    out.endObject();
+                }
+                out.endArray();
+                out.name("progress").value(count == 0 ? 0 : sum / count);
+                out.endObject();
+            }
+            out.endArray();
+        }
+    }
+}
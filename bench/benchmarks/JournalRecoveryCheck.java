@@ -0,0 +1,90 @@
+package benchmarks;
+
+import models.Project;
+import repository.ProjectRepository;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the project journal survives a crash in the middle of an
+ * append. Each step runs in a fresh JVM (the repositories are static) with
+ * -Dsmartpm.journal=true: add project A, leave half a record at the end of
+ * the journal as a crash would, restart and add project C, then restart again
+ * and check that both A and C are loaded.
+ *
+ * Works in a temporary directory. Exits with status 1 if a check fails.
+ */
+public class JournalRecoveryCheck {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            step(args);
+            return;
+        }
+
+        Path dir = Files.createTempDirectory("smartpm-journal-");
+        System.out.println("# Data in " + dir);
+        boolean ok = fork(dir, "add", "recovery-a")
+                && tear(dir.resolve("projects.journal"))
+                && fork(dir, "add", "recovery-c")
+                && fork(dir, "check", "recovery-a", "recovery-c");
+        if (ok) {
+            System.out.println("PASS");
+        } else {
+            System.out.println("FAIL");
+            System.exit(1);
+        }
+    }
+
+    /** Append the first half of a record, without its newline */
+    private static boolean tear(Path journal) throws Exception {
+        String torn = "{\"op\":\"PROJECT_ADDED\",\"projectId\":\"recovery-b\",\"proj";
+        Files.write(journal, torn.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        System.out.println("# Tore the last record of " + journal.getFileName());
+        return true;
+    }
+
+    /** Run one step in its own JVM; true if it exited with status 0 */
+    private static boolean fork(Path dir, String... step) throws Exception {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("-Dsmartpm.data.dir=" + dir);
+        cmd.add("-Dsmartpm.journal=true");
+        cmd.add(JournalRecoveryCheck.class.getName());
+        for (String s : step) cmd.add(s);
+
+        Process fork = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(fork.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) System.out.println("  " + line);
+        }
+        return fork.waitFor() == 0;
+    }
+
+    /** add <id>: add a project and wait until it is durable; check <id>...: every project is loaded */
+    private static void step(String[] args) {
+        ProjectRepository.loadAll();
+        if (args[0].equals("add")) {
+            ProjectRepository.add(new Project(args[1], "Recovery " + args[1], "", "2030-01-01", "cli-1", "mgr-1"));
+            ProjectRepository.awaitDurable();
+            System.out.println("added " + args[1]);
+            return;
+        }
+        boolean ok = true;
+        for (int i = 1; i < args.length; i++) {
+            boolean found = ProjectRepository.findById(args[i]) != null;
+            System.out.println((found ? "found " : "MISSING ") + args[i]);
+            ok &= found;
+        }
+        if (!ok) System.exit(1);
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal JMH-style timing loop: warmup iterations are discarded, each
+ * measured iteration repeats the operation until a time budget is spent
+ * and reports the average time per operation.
+ */
+public class Measurement {
+
+    /** One benchmarked operation; the return value is consumed so the JIT cannot drop the work */
+    public interface Op {
+        Object run(int invocation) throws Exception;
+    }
+
+    public static class Result {
+        public final String benchmark;
+        public final double score;       // microseconds per operation
+        public final double scoreError;  // ~99.9% confidence half-width
+        public final List<Double> rawData;
+
+        Result(String benchmark, List<Double> rawData) {
+            this.benchmark = benchmark;
+            this.rawData = rawData;
+
+            double mean = rawData.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            double var = rawData.stream().mapToDouble(d -> (d - mean) * (d - mean)).sum() / Math.max(1, rawData.size() - 1);
+            this.score = mean;
+            this.scoreError = rawData.size() > 1 ? 3.29 * Math.sqrt(var / rawData.size()) : Double.NaN;
+        }
+    }
+
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+
+    public Measurement(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    public Result run(String benchmark, Op op) throws Exception {
+        int invocation = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            invocation = iteration(op, invocation, null);
+        }
+
+        List<Double> raw = new ArrayList<>();
+        for (int i = 0; i < measurementIterations; i++) {
+            invocation = iteration(op, invocation, raw);
+        }
+        return new Result(benchmark, raw);
+    }
+
+    private int iteration(Op op, int invocation, List<Double> raw) throws Exception {
+        long ops = 0;
+        int batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            // Grow the batch for fast operations so reading the clock does not dominate
+            for (int b = 0; b < batch; b++) {
+                sink = op.run(invocation++);
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+            if (elapsed < iterationNanos / 100 && batch < (1 << 20)) batch <<= 1;
+        } while (elapsed < iterationNanos);
+
+        if (raw != null) raw.add(elapsed / 1000.0 / ops);
+        return invocation;
+    }
+}
@@ -5,8 +5,8 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import utils.SceneController;
-import repository.UserRepository;
 import repository.ProjectRepository;
+import repository.RepositoryLoader;
 
 public class Main extends Application {
 
@@ -17,16 +17,10 @@ public class Main extends Application {
             // Register main stage for SceneController
             SceneController.setMainStage(primaryStage);
 
-            // --- LOAD REPOSITORIES BEFORE ANY DASHBOARD IS OPENED ---
-            // Load synchronously to prevent controllers from getting null data
-            try {
-                UserRepository.loadAll();
-                ProjectRepository.loadAll();
-                System.out.println("User & Project JSON loaded successfully!");
-            } catch (Exception e) {
-                System.err.println("ERROR loading repositories!");
-                e.printStackTrace();
-            }
+            // --- LOAD REPOSITORIES IN THE BACKGROUND WHILE THE SPLASH RUNS ---
+            // SplashController only moves on to Login once this has finished
+            RepositoryLoader.loadAllAsync();
+            SceneController.preload("Login.fxml");
 
             // --- LOAD SPLASH SCREEN ---
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Splash.fxml"));
@@ -35,11 +29,11 @@ public class Main extends Application {
             Scene scene = new Scene(root);
 
             // Apply CSS safely (check exists)
-            try {
-                String css = getClass().getResource("/css/style.css").toExternalForm();
+            String css = SceneController.stylesheet();
+            if (css != null) {
                 scene.getStylesheets().add(css);
                 System.out.println("style.css loaded");
-            } catch (Exception e) {
+            } else {
                 System.out.println("style.css NOT FOUND");
             }
 
@@ -54,6 +48,12 @@ public class Main extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        // Write out anything the write-behind writer has not flushed yet
+        ProjectRepository.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -1,6 +1,7 @@
 package controllers;
 
 import javafx.animation.ScaleTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -9,10 +10,18 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.util.Duration;
 import models.Project;
+import repository.AsyncProjectRepository;
+import repository.ProjectChange;
 import repository.ProjectRepository;
+import services.RiskAISuggester;
+import utils.ListViews;
+import utils.SceneAware;
 import utils.SceneController;
 
-public class AdminDashboardController {
+import java.util.List;
+import java.util.function.Consumer;
+
+public class AdminDashboardController implements SceneAware {
 
     @FXML private ListView<Project> projectsList;
     @FXML private TextField projectNameField;
@@ -20,12 +29,36 @@ public class AdminDashboardController {
     @FXML private TextArea descArea;
     @FXML private Label statusLabel;
 
+    private static final int PORTFOLIO_RISK_ROWS = 100;
+    private Consumer<ProjectChange> changeListener;
+
     @FXML
     public void initialize() {
         setupListView();
+    }
+
+    /** Reload the project list and clear the form every time the dashboard is shown */
+    @Override
+    public void onShow() {
+        // Follow repository changes only while the dashboard is showing
+        if (changeListener == null) {
+            changeListener = change -> Platform.runLater(() -> onProjectChange(change));
+            ProjectRepository.addChangeListener(changeListener);
+        }
+        projectNameField.clear();
+        deadlinePicker.setValue(null);
+        descArea.clear();
+        statusLabel.setText("");
         refresh();
     }
 
+    /** Stop following repository changes while another scene is shown; onShow() reloads the list anyway */
+    @Override
+    public void onHide() {
+        ProjectRepository.removeChangeListener(changeListener);
+        changeListener = null;
+    }
+
     /** Setup ListView with beautifully styled light-themed project cards with smooth hover animation */
     private void setupListView() {
 
@@ -173,6 +206,24 @@ public class AdminDashboardController {
         projectsList.getItems().setAll(ProjectRepository.getAll());
     }
 
+    /** Apply one repository change to the list instead of reloading all of it */
+    private void onProjectChange(ProjectChange change) {
+        Project p = change.getProject();
+        List<Project> items = projectsList.getItems();
+        switch (change.getType()) {
+            case PROJECT_ADDED:
+                if (!items.contains(p)) items.add(p);
+                break;
+            case PROJECT_REMOVED:
+                items.remove(p);
+                break;
+            default:
+                // Fields, tasks or progress changed: only this card is drawn again
+                ListViews.refreshItem(projectsList, p);
+        }
+        if (change.isExternal()) statusLabel.setText("Projects updated by another instance");
+    }
+
     /** Create a new project */
     @FXML
     private void onCreateProject() {
@@ -193,11 +244,15 @@ public class AdminDashboardController {
                 null
         );
 
-        ProjectRepository.add(p);
-        ProjectRepository.loadAll(); // 🔥 ensure memory sync
-        refresh();
-
-        statusLabel.setText("Project created successfully");
+        statusLabel.setText("Saving project...");
+        AsyncProjectRepository.add(p).whenComplete((v, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                statusLabel.setText("Failed to save project");
+                return;
+            }
+            statusLabel.setText("Project created successfully");
+        }));
     }
 
     /** Delete selected project */
@@ -210,13 +265,50 @@ public class AdminDashboardController {
             return;
         }
 
-        boolean removed = ProjectRepository.remove(p);
-        if (removed) {
-            refresh();
-            statusLabel.setText("Project removed successfully");
-        } else {
-            statusLabel.setText("Failed to remove project");
+        statusLabel.setText("Removing project...");
+        AsyncProjectRepository.remove(p).whenComplete((removed, ex) -> Platform.runLater(() -> {
+            if (ex != null) ex.printStackTrace();
+            if (ex == null && removed) {
+                statusLabel.setText("Project removed successfully");
+            } else {
+                statusLabel.setText("Failed to remove project");
+            }
+        }));
+    }
+
+    /** Score every project in the background and list the riskiest ones */
+    @FXML
+    private void onPortfolioRisk() {
+        List<Project> all = ProjectRepository.getAll();
+        statusLabel.setText("Scoring " + all.size() + " projects...");
+
+        RiskAISuggester.scorePortfolioAsync(all).whenComplete((scores, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                statusLabel.setText("Risk scoring failed");
+                return;
+            }
+            showPortfolioRisk(scores);
+            statusLabel.setText("Scored " + scores.size() + " projects");
+        }));
+    }
+
+    private void showPortfolioRisk(List<RiskAISuggester.RiskScore> scores) {
+        StringBuilder sb = new StringBuilder();
+        for (RiskAISuggester.RiskScore s : scores.subList(0, Math.min(PORTFOLIO_RISK_ROWS, scores.size()))) {
+            sb.append(s).append('\n');
         }
+
+        TextArea text = new TextArea(sb.toString());
+        text.setEditable(false);
+        text.setWrapText(false);
+        text.setPrefSize(620, 360);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Portfolio Risk");
+        alert.setHeaderText(scores.isEmpty() ? "No projects" : "Highest risk first (top " + Math.min(PORTFOLIO_RISK_ROWS, scores.size()) + " of " + scores.size() + ")");
+        alert.getDialogPane().setContent(text);
+        alert.showAndWait();
     }
 
     /** Back button action */
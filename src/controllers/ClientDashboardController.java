@@ -1,27 +1,42 @@
 package controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import models.Client;
 import models.Project;
+import repository.ProjectChange;
 import repository.ProjectRepository;
 import services.RiskAISuggester;
+import utils.ListViews;
+import utils.SceneAware;
 import utils.SceneController;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
-public class ClientDashboardController {
+public class ClientDashboardController implements SceneAware {
     
     @FXML private ListView<Project> myProjectsList;
     @FXML private Label riskLabel;
     @FXML private Label statusLabel;
 
     private Client loggedInClient;
+    private Consumer<ProjectChange> changeListener;
+
+    /** Re-bind to the client of the current session every time the dashboard is shown */
+    @Override
+    public void onShow() {
+        // Follow repository changes only while the dashboard is showing
+        if (changeListener == null) {
+            changeListener = change -> Platform.runLater(() -> onProjectChange(change));
+            ProjectRepository.addChangeListener(changeListener);
+        }
+        myProjectsList.getItems().clear();
+        riskLabel.setText("");
+        riskLabel.getStyleClass().removeAll("risk-low", "risk-medium", "risk-high");
 
-    @FXML
-    public void initialize() {
         // Get logged-in client
         loggedInClient = (Client) LoginController.getLoggedInUser();
 
@@ -32,10 +47,40 @@ public class ClientDashboardController {
             return;
         }
 
+        loadProjects();
+    }
+
+    /** Drop the client's session and the change listener when leaving the dashboard */
+    @Override
+    public void onHide() {
+        ProjectRepository.removeChangeListener(changeListener);
+        changeListener = null;
+        loggedInClient = null;
+    }
+
+    /** Apply one repository change to the list instead of reloading it */
+    private void onProjectChange(ProjectChange change) {
+        if (loggedInClient == null) return;
+
+        Project p = change.getProject();
+        List<Project> items = myProjectsList.getItems();
+        switch (change.getType()) {
+            case PROJECT_ADDED:
+                if (loggedInClient.getId().equals(p.getClientId()) && !items.contains(p)) items.add(p);
+                break;
+            case PROJECT_REMOVED:
+                items.remove(p);
+                break;
+            default:
+                ListViews.refreshItem(myProjectsList, p);
+                // Progress feeds the risk score shown for the selected project
+                if (p == myProjectsList.getSelectionModel().getSelectedItem()) onSelectProject();
+        }
+    }
+
+    private void loadProjects() {
         // Load projects assigned to this client
-        List<Project> clientProjects = ProjectRepository.getAll().stream()
-                .filter(p -> loggedInClient.getId().equals(p.getClientId()))
-                .collect(Collectors.toList());
+        List<Project> clientProjects = ProjectRepository.getByClientId(loggedInClient.getId());
 
         // If no projects assigned, show all projects
         if (clientProjects.isEmpty()) {
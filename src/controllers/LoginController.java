@@ -9,9 +9,11 @@ import javafx.scene.image.ImageView;
 import javafx.scene.shape.Circle;
 import models.User;
 import services.AuthService;
+import utils.ImageCache;
+import utils.SceneAware;
 import utils.SceneController;
 
-public class LoginController {
+public class LoginController implements SceneAware {
 
     // ================== FXML FIELDS ==================
 
@@ -45,12 +47,20 @@ public class LoginController {
         statusLabel.setText("");
     }
 
+    /** Coming back to the login screen ends the session and clears the form */
+    @Override
+    public void onShow() {
+        loggedInUser = null;
+        emailField.clear();
+        passwordField.clear();
+        statusLabel.setText("");
+    }
+
     /** Load logo safely and make it circular */
     private void loadLogo() {
         try {
-            var url = getClass().getResource("/images/logo.png");
-            if (url != null) {
-                Image image = new Image(url.toExternalForm());
+            Image image = ImageCache.get("/images/logo.png");
+            if (image != null) {
                 logo.setImage(image);
 
                 // Make logo circular (matches modern UI)
@@ -6,6 +6,7 @@ import javafx.scene.Parent;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
+import utils.ImageCache;
 
 public class MainLayoutController {
 
@@ -20,9 +21,9 @@ public class MainLayoutController {
 
     private void loadLogo() {
         try {
-            var url = getClass().getResource("/images/logo.png");
-            if (url != null) {
-                logo.setImage(new Image(url.toExternalForm()));
+            Image image = ImageCache.get("/images/logo.png");
+            if (image != null) {
+                logo.setImage(image);
             }
         } catch (Exception e) {
             System.out.println("⚠️ Failed to load logo");
@@ -1,21 +1,30 @@
 package controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import models.*;
+import repository.AsyncProjectRepository;
+import repository.ProjectChange;
 import repository.ProjectRepository;
 import repository.UserRepository;
 import services.RiskAISuggester;
+import services.TaskService;
+import utils.ListViews;
+import utils.SceneAware;
 import utils.SceneController;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-public class ManagerDashboardController {
+public class ManagerDashboardController implements SceneAware {
 
     @FXML private ListView<Project> projectsList;
     @FXML private ListView<Task> tasksList;
@@ -35,15 +44,18 @@ public class ManagerDashboardController {
 
     private Manager loggedInManager;
     private List<Project> allProjects;
+    private ObservableList<Project> allProjectsView;
+    private Consumer<ProjectChange> changeListener;
+
+    // Most search results handed to the project list at once
+    private static final int SEARCH_PAGE_SIZE = 200;
+
     private final Label tasksPlaceholderLabel =
             new Label("No tasks assigned yet. Select a project or assign a task.");
 
     @FXML
     public void initialize() {
 
-        ProjectRepository.loadAll();
-        UserRepository.loadAll();
-
         projectsTitleLabel.setFont(Font.font("Segoe UI Semibold", 18));
         tasksTitleLabel.setFont(Font.font("Segoe UI Semibold", 18));
         suggestionsTitleLabel.setFont(Font.font("Segoe UI Semibold", 18));
@@ -51,18 +63,6 @@ public class ManagerDashboardController {
         tasksPlaceholderLabel.setWrapText(true);
         tasksList.setPlaceholder(tasksPlaceholderLabel);
 
-        loggedInManager = (Manager) LoginController.getLoggedInUser();
-        if (loggedInManager == null) {
-            statusLabel.setText("ERROR: No manager session found.");
-            return;
-        }
-
-        allProjects = ProjectRepository.getAll().stream()
-                .filter(p -> p.getManagerId() == null || loggedInManager.getId().equals(p.getManagerId()))
-                .collect(Collectors.toList());
-        projectsList.setItems(FXCollections.observableArrayList(allProjects));
-
-        memberComboBox.setItems(FXCollections.observableArrayList(UserRepository.getAllMembers()));
         projectsList.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
 
         setupProjectListView();
@@ -81,6 +81,102 @@ public class ManagerDashboardController {
         suggestionsArea.setWrapText(true);
     }
 
+    /** Re-bind to the manager of the current session every time the dashboard is shown */
+    @Override
+    public void onShow() {
+        // Follow repository changes only while the dashboard is showing
+        if (changeListener == null) {
+            changeListener = change -> Platform.runLater(() -> onProjectChange(change));
+            ProjectRepository.addChangeListener(changeListener);
+        }
+        loggedInManager = (Manager) LoginController.getLoggedInUser();
+        allProjects = null;
+        allProjectsView = FXCollections.observableArrayList();
+        projectsList.setItems(allProjectsView);
+        searchProjectField.clear();
+        taskDescField.clear();
+        statusLabel.setText("");
+
+        if (loggedInManager == null) {
+            statusLabel.setText("ERROR: No manager session found.");
+            return;
+        }
+
+        allProjects = managedProjects();
+        allProjectsView.setAll(allProjects);
+
+        memberComboBox.setItems(FXCollections.observableArrayList(UserRepository.getAllMembers()));
+    }
+
+    /** Leaving the dashboard (logout included) ends the manager's session here and stops change events */
+    @Override
+    public void onHide() {
+        ProjectRepository.removeChangeListener(changeListener);
+        changeListener = null;
+        loggedInManager = null;
+    }
+
+    /** Projects of the logged-in manager, plus unassigned ones */
+    private List<Project> managedProjects() {
+        return ProjectRepository.getAll().stream()
+                .filter(this::isManaged)
+                .collect(Collectors.toList());
+    }
+
+    private boolean isManaged(Project p) {
+        return p.getManagerId() == null || loggedInManager.getId().equals(p.getManagerId());
+    }
+
+    /** Apply one repository change to the lists instead of rebuilding them */
+    private void onProjectChange(ProjectChange change) {
+        if (loggedInManager == null) return;
+
+        Project p = change.getProject();
+        boolean selected = p == projectsList.getSelectionModel().getSelectedItem();
+        switch (change.getType()) {
+            case PROJECT_ADDED:
+                if (isManaged(p)) showProject(p);
+                break;
+            case PROJECT_REMOVED:
+                hideProject(p);
+                break;
+            case PROJECT_UPDATED:
+                // The manager may have changed, and another instance may have replaced the tasks
+                if (!isManaged(p)) {
+                    hideProject(p);
+                } else if (!allProjects.contains(p)) {
+                    showProject(p);
+                } else {
+                    ListViews.refreshItem(projectsList, p);
+                    if (selected && change.isExternal()) loadProjectDetails(p);
+                }
+                break;
+            case TASK_ADDED:
+                ListViews.refreshItem(projectsList, p);
+                if (selected && !tasksList.getItems().contains(change.getTask())) {
+                    tasksList.getItems().add(change.getTask());
+                }
+                break;
+            case TASK_CHANGED:
+                ListViews.refreshItem(projectsList, p);
+                if (selected) ListViews.refreshItem(tasksList, change.getTask());
+                break;
+        }
+        if (change.isExternal()) statusLabel.setText("Projects updated by another instance.");
+    }
+
+    private void showProject(Project p) {
+        if (allProjects.contains(p)) return;
+        allProjects.add(p);
+        allProjectsView.add(p);
+    }
+
+    private void hideProject(Project p) {
+        allProjects.remove(p);
+        allProjectsView.remove(p);
+        if (projectsList.getItems() != allProjectsView) projectsList.getItems().remove(p); // search results
+    }
+
     private void loadProjectDetails(Project project) {
         tasksList.getItems().clear();
         if (project == null) {
@@ -92,21 +188,34 @@ public class ManagerDashboardController {
         Project freshProject = ProjectRepository.findById(project.getId());
         if (freshProject == null) return;
 
-        tasksList.setItems(FXCollections.observableArrayList(freshProject.getTasks()));
+        // In lazy mode the tasks may have to be read from disk first
+        AsyncProjectRepository.getTasks(freshProject).whenComplete((tasks, ex) -> Platform.runLater(() -> {
+            if (freshProject != projectsList.getSelectionModel().getSelectedItem()) return; // selection moved on
+            if (ex != null) {
+                ex.printStackTrace();
+                statusLabel.setText("Could not load the tasks of " + freshProject.getName() + ".");
+                return;
+            }
+            tasksList.setItems(FXCollections.observableArrayList(tasks));
+        }));
         loadAISuggestions(freshProject);
         progressField.setText(String.valueOf((int) freshProject.getProgress()));
+        if (memberComboBox.getSelectionModel().isEmpty()) {
+            memberComboBox.getSelectionModel().select(TaskService.getLeastBusyMember(freshProject));
+        }
         statusLabel.setText("");
     }
 
     private void filterProjects(String query) {
+        if (loggedInManager == null) return;
+
         if (query == null || query.isBlank()) {
-            projectsList.setItems(FXCollections.observableArrayList(allProjects));
+            projectsList.setItems(allProjectsView);
         } else {
-            String lower = query.toLowerCase();
-            List<Project> filtered = allProjects.stream()
-                    .filter(p -> p.getName() != null && p.getName().toLowerCase().contains(lower))
-                    .collect(Collectors.toList());
-            projectsList.setItems(FXCollections.observableArrayList(filtered));
+            // Ranked lookup in the repository's trigram index, one page at most
+            List<Project> found = ProjectRepository.search(query.trim(), SEARCH_PAGE_SIZE,
+                    p -> p.getManagerId() == null || loggedInManager.getId().equals(p.getManagerId()));
+            projectsList.setItems(FXCollections.observableArrayList(found));
         }
         projectsList.getSelectionModel().clearSelection();
         tasksList.getItems().clear();
@@ -165,11 +274,10 @@ public class ManagerDashboardController {
                         currentTask.setCompleted(completed.isSelected());
                         Project project = projectsList.getSelectionModel().getSelectedItem();
                         if (project != null) {
-                            project.updateProgress();
                             progressField.setText(String.valueOf((int) project.getProgress()));
                         }
-                        ProjectRepository.saveAll();
-                        projectsList.refresh();
+                        // The project card is redrawn by the TASK_CHANGED event
+                        persist(AsyncProjectRepository.updateProjectForTask(currentTask), "Task saved.", null);
                     }
                 });
             }
@@ -215,27 +323,25 @@ public void onAssignTask(javafx.event.ActionEvent event) {
     // ✅ Assign manager only if not already assigned
     if (selected.getManagerId() == null) {
         selected.setManagerId(loggedInManager.getId());
-        // No need to recreate ObservableList
-        projectsList.refresh(); // Just refresh the ListView
+        AsyncProjectRepository.updateProject(selected); // its PROJECT_UPDATED event redraws the card
     }
 
     // Create new task with unique ID
     Task newTask = new Task(desc, desc, member.getId(), false);
 
-    // Add task safely (Project.addTask prevents duplicates)
-    selected.addTask(newTask);
-
-    // Save to repository
-    ProjectRepository.saveAll();
-
-    // 🔹 Update tasksList immediately without creating a new list
+    // 🔹 Show the task at once; it is added and persisted on the repository I/O thread
     if (!tasksList.getItems().contains(newTask)) {
         tasksList.getItems().add(newTask);
     }
-    tasksList.refresh();
-
     taskDescField.clear();
-    statusLabel.setText("Task assigned successfully.");
+
+    // Add task safely (Project.addTask prevents duplicates) and persist it
+    persist(AsyncProjectRepository.addTask(selected, newTask), "Task assigned successfully.", () -> {
+        // Suggest whoever now has the lightest workload for the next assignment
+        if (selected == projectsList.getSelectionModel().getSelectedItem()) {
+            memberComboBox.getSelectionModel().select(TaskService.getLeastBusyMember(selected));
+        }
+    });
 }
 
 
@@ -247,10 +353,24 @@ public void onAssignTask(javafx.event.ActionEvent event) {
             return;
         }
         project.updateProgress();
-        ProjectRepository.saveAll();
-        projectsList.refresh();
+        ListViews.refreshItem(projectsList, project);
         progressField.setText(String.valueOf((int) project.getProgress()));
-        statusLabel.setText("Progress recalculated based on tasks.");
+        persist(AsyncProjectRepository.saveAll(), "Progress recalculated based on tasks.", null);
+    }
+
+    /** Show "Saving..." until the write is done, then the message (and run onSaved) on the FX thread */
+    private void persist(CompletableFuture<?> write, String savedMessage, Runnable onSaved) {
+        statusLabel.setText("Saving...");
+        write.whenComplete((v, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                statusLabel.setText("Saving failed. Please try again.");
+                return;
+            }
+            if (onSaved != null) onSaved.run();
+            // A later write may have started meanwhile; it reports when it finishes
+            if (AsyncProjectRepository.pending() == 0) statusLabel.setText(savedMessage);
+        }));
     }
 
     @FXML
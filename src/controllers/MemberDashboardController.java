@@ -11,13 +11,19 @@ import javafx.util.Duration;
 import models.Member;
 import models.Project;
 import models.Task;
+import repository.AsyncProjectRepository;
+import repository.ProjectChange;
 import repository.ProjectRepository;
+import utils.ListViews;
+import utils.SceneAware;
 import utils.SceneController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-public class MemberDashboardController {
+public class MemberDashboardController implements SceneAware {
 
     @FXML private ListView<Task> tasksList;
     @FXML private TextField progressField;
@@ -32,26 +38,106 @@ public class MemberDashboardController {
 
     // 🔧 FIX: Track parent project for each task
     private final Map<Task, Project> taskProjectMap = new HashMap<>();
+    private Consumer<ProjectChange> changeListener;
 
     @FXML
     public void initialize() {
+        setupListView();
+
+        updateProgressBtn.setOnAction(e -> onUpdateProgress());
+
+        progressField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) onUpdateProgress();
+        });
+    }
+
+    /** Apply one repository change to the task list instead of rebuilding it */
+    private void onProjectChange(ProjectChange change) {
+        if (loggedInMember == null) return;
+
+        Project p = change.getProject();
+        Task t = change.getTask();
+        switch (change.getType()) {
+            case TASK_ADDED:
+                if (loggedInMember.getId().equals(t.getAssignedMemberId()) && !myTasks.contains(t)) {
+                    myTasks.add(t);
+                    taskProjectMap.put(t, p);
+                }
+                break;
+            case TASK_CHANGED:
+                ListViews.refreshItem(tasksList, t);
+                break;
+            case PROJECT_UPDATED:
+                // Only another instance can replace a project's tasks
+                if (!change.isExternal()) break;
+                dropTasksOf(p);
+                addTasksOf(p);
+                break;
+            case PROJECT_ADDED:
+                addTasksOf(p);
+                break;
+            case PROJECT_REMOVED:
+                dropTasksOf(p);
+                break;
+        }
+    }
+
+    /** Add the member's tasks of a project once its task list is loaded, which in lazy mode may read its shard */
+    private void addTasksOf(Project p) {
+        Member member = loggedInMember;
+        AsyncProjectRepository.getTasks(p).whenComplete((tasks, ex) -> Platform.runLater(() -> {
+            // The session ended or the project was removed while loading
+            if (member != loggedInMember || ProjectRepository.findById(p.getId()) != p) return;
+            if (ex != null) {
+                ex.printStackTrace();
+                showStatus("Could not load the tasks of " + p.getName() + ".", false);
+                return;
+            }
+            for (Task t : tasks) {
+                if (member.getId().equals(t.getAssignedMemberId()) && !myTasks.contains(t)) {
+                    myTasks.add(t);
+                    taskProjectMap.put(t, p);
+                }
+            }
+        }));
+    }
+
+    private void dropTasksOf(Project p) {
+        myTasks.removeIf(t -> taskProjectMap.get(t) == p);
+        taskProjectMap.values().removeIf(owner -> owner == p);
+    }
+
+    /** Re-bind to the member of the current session every time the dashboard is shown */
+    @Override
+    public void onShow() {
+        // Follow repository changes only while the dashboard is showing
+        if (changeListener == null) {
+            changeListener = change -> Platform.runLater(() -> onProjectChange(change));
+            ProjectRepository.addChangeListener(changeListener);
+        }
+        myTasks.clear();
+        taskProjectMap.clear();
+        clearProgressUI();
+        statusLabel.setText("");
+
         loggedInMember = (Member) LoginController.getLoggedInUser();
         if (loggedInMember == null) {
             statusLabel.setText("Session expired. Please login again.");
             updateProgressBtn.setDisable(true);
             return;
         }
+        updateProgressBtn.setDisable(false);
 
         welcomeLabel.setText("Welcome back, " + loggedInMember.getName());
-
-        setupListView();
         loadAssignedTasks();
+    }
 
-        updateProgressBtn.setOnAction(e -> onUpdateProgress());
-
-        progressField.setOnKeyPressed(e -> {
-            if (e.getCode() == KeyCode.ENTER) onUpdateProgress();
-        });
+    /** Forget the member and stop listening once another scene is shown, so a later login starts clean */
+    @Override
+    public void onHide() {
+        ProjectRepository.removeChangeListener(changeListener);
+        changeListener = null;
+        loggedInMember = null;
     }
 
     /* ---------------------- ListView Setup ---------------------- */
@@ -71,14 +157,7 @@ public class MemberDashboardController {
         taskProjectMap.clear();
 
         for (Project p : ProjectRepository.getAll()) {
-            for (Task t : p.getTasks()) {
-                if (loggedInMember.getId().equals(t.getAssignedMemberId())) {
-                    if (!myTasks.contains(t)) {
-                        myTasks.add(t);
-                        taskProjectMap.put(t, p); // 🔧 FIX
-                    }
-                }
-            }
+            addTasksOf(p);
         }
     }
 
@@ -115,15 +194,11 @@ public class MemberDashboardController {
             double updated = Math.min(100, Math.max(0, current + delta));
 
             selectedTask.setProgress(updated);
-
-            // 🔧 FIX: Update real parent project directly
-            Project parent = taskProjectMap.get(selectedTask);
-            if (parent != null) parent.updateProgress();
-
-            ProjectRepository.saveAll();
-            tasksList.refresh();
+            ListViews.refreshItem(tasksList, selectedTask);
             updateProgressUI(updated);
-            showStatus("Progress updated ✔", true);
+
+            // Recompute the parent project and persist just this change
+            persist(AsyncProjectRepository.updateProjectForTask(selectedTask), "Progress updated ✔");
 
         } catch (NumberFormatException e) {
             showStatus("Invalid number entered!", false);
@@ -147,15 +222,11 @@ public class MemberDashboardController {
             }
 
             selectedTask.setProgress(progress);
-
-            // 🔧 FIX: Update real parent project directly
-            Project parent = taskProjectMap.get(selectedTask);
-            if (parent != null) parent.updateProgress();
-
-            ProjectRepository.saveAll();
-            tasksList.refresh();
+            ListViews.refreshItem(tasksList, selectedTask);
             updateProgressUI(progress);
-            showStatus("Progress updated successfully ✔", true);
+
+            // Recompute the parent project and persist just this change
+            persist(AsyncProjectRepository.updateProjectForTask(selectedTask), "Progress updated successfully ✔");
 
         } catch (NumberFormatException e) {
             showStatus("Enter a valid number", false);
@@ -163,6 +234,20 @@ public class MemberDashboardController {
     }
 
     /* ---------------------- Status Feedback ---------------------- */
+    /** Show "Saving..." until the write is done, then the message */
+    private void persist(CompletableFuture<?> write, String savedMessage) {
+        showStatus("Saving...", true);
+        write.whenComplete((v, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                showStatus("Saving failed. Please try again.", false);
+            } else if (AsyncProjectRepository.pending() == 0) {
+                // A later write may have started meanwhile; it reports when it finishes
+                showStatus(savedMessage, true);
+            }
+        }));
+    }
+
     private void showStatus(String message, boolean success) {
         statusLabel.setText(message);
         statusLabel.getStyleClass().removeAll("success-label", "error-label");
@@ -1,5 +1,6 @@
 package controllers;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
@@ -7,9 +8,10 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import models.User;
 import services.AuthService;
+import utils.SceneAware;
 import utils.SceneController;
 
-public class RegisterController {
+public class RegisterController implements SceneAware {
 
     // ================== FXML FIELDS ==================
 
@@ -42,6 +44,13 @@ public class RegisterController {
         statusLabel.setText("");
     }
 
+    /** Start with an empty form every time the page is opened */
+    @Override
+    public void onShow() {
+        clearFields();
+        statusLabel.setText("");
+    }
+
     // ================== REGISTER ==================
 
     @FXML
@@ -68,15 +77,19 @@ public class RegisterController {
             return;
         }
 
-        // 🔹 Register user
-        boolean success = AuthService.register(name, email, password, role);
-
-        if (success) {
-            showSuccess("Registration successful! Please login.");
-            clearFields();
-        } else {
-            showError("Email already exists.");
-        }
+        // 🔹 Register user (saved on the repository I/O thread)
+        showSuccess("Creating account...");
+        AuthService.registerAsync(name, email, password, role).whenComplete((success, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                showError("Registration failed. Please try again.");
+            } else if (success) {
+                showSuccess("Registration successful! Please login.");
+                clearFields();
+            } else {
+                showError("Email already exists.");
+            }
+        }));
     }
 
     // ================== NAVIGATION ==================
@@ -4,7 +4,9 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.application.Platform;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.effect.Glow;
 import javafx.scene.shape.Circle;
 import javafx.scene.SnapshotParameters;
@@ -13,6 +15,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.layout.StackPane;
 import javafx.animation.*;
 import javafx.util.Duration;
+import repository.RepositoryLoader;
+import utils.ImageCache;
 import utils.SceneController;
 
 import java.net.URL;
@@ -23,6 +27,7 @@ public class SplashController implements Initializable {
     @FXML private ImageView logo;
     @FXML private Label devText;
     @FXML private StackPane root;
+    @FXML private ProgressBar loadProgress;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -35,9 +40,9 @@ public class SplashController implements Initializable {
     /** Load logo image safely */
     private void loadLogo() {
         try {
-            URL url = getClass().getResource("/images/logo.png");
-            if (url != null) {
-                logo.setImage(new Image(url.toExternalForm()));
+            Image image = ImageCache.get("/images/logo.png");
+            if (image != null) {
+                logo.setImage(image);
             } else {
                 System.err.println("Logo not found!");
             }
@@ -115,9 +120,20 @@ public class SplashController implements Initializable {
         bgAnim.setCycleCount(Animation.INDEFINITE);
         bgAnim.play();
 
-        // Auto redirect to Login
+        // Loading progress, measured in bytes read by the repository loader
+        Timeline progressAnim = new Timeline(
+                new KeyFrame(Duration.millis(100), e -> loadProgress.setProgress(RepositoryLoader.progress()))
+        );
+        progressAnim.setCycleCount(Animation.INDEFINITE);
+        progressAnim.play();
+
+        // Redirect to Login once the animation has played and the data is loaded
         PauseTransition delay = new PauseTransition(Duration.seconds(3.5));
-        delay.setOnFinished(e -> SceneController.switchTo("Login.fxml"));
+        delay.setOnFinished(e -> RepositoryLoader.loadAllAsync().whenComplete((v, ex) -> Platform.runLater(() -> {
+            progressAnim.stop();
+            loadProgress.setProgress(1);
+            SceneController.switchTo("Login.fxml");
+        })));
         delay.play();
     }
 }
@@ -6,22 +6,48 @@ import javafx.collections.ObservableList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+/**
+ * A project and its tasks. The task list and the running progress totals are
+ * guarded by the project's monitor, which task setters take too, so progress
+ * stays consistent under concurrent updates. Lock order: repository lock,
+ * then project, then task; the task loader is therefore only called while
+ * not holding the project's monitor.
+ */
 public class Project {
 
     private String id;
     private String name;
     private String description;
     private String deadline; // ISO date string
-    private double progress; // 0-100
+    private volatile double progress; // 0-100
     private String clientId;
     private String managerId;
 
     // Observable list for JavaFX binding
     private transient ObservableList<Task> observableTasks = FXCollections.observableArrayList();
 
-    // Plain list for serialization
-    private List<Task> tasks = new ArrayList<>();
+    // Plain list for serialization; null while the tasks have not been loaded yet
+    private volatile List<Task> tasks = new ArrayList<>();
+
+    // Fetches the task list on first access for projects loaded from the header index
+    private transient Consumer<Project> taskLoader;
+    private transient int unloadedTaskCount;
+    private transient int unloadedCompletedCount;
+    private transient volatile long tasksAccessed;
+
+    // Running totals kept current by Task setters, so progress never needs a rescan
+    private transient double progressSum;
+    private transient int completedCount;
+
+    // Set by any change to the project or its tasks; cleared once its storage shard is written
+    private transient volatile boolean dirty = true;
+
+    // Bumped on every change; drawn from one counter so no two project states share a version
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private transient volatile long version = VERSIONS.incrementAndGet();
 
     public Project() {}
 
@@ -42,53 +68,202 @@ public class Project {
 
     // ----- Getters & Setters -----
     public String getId() { return id; }
-    public void setId(String id) { this.id = id; }
+    public void setId(String id) { this.id = id; markDirty(); }
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; markDirty(); }
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) { this.description = description; markDirty(); }
     public String getDeadline() { return deadline; }
-    public void setDeadline(String deadline) { this.deadline = deadline; }
+    public void setDeadline(String deadline) { this.deadline = deadline; markDirty(); }
     public double getProgress() { return progress; }
-    public void setProgress(double progress) { this.progress = progress; }
+    public void setProgress(double progress) { this.progress = progress; markDirty(); }
     public String getClientId() { return clientId; }
-    public void setClientId(String clientId) { this.clientId = clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; markDirty(); }
     public String getManagerId() { return managerId; }
-    public void setManagerId(String managerId) { this.managerId = managerId; }
+    public void setManagerId(String managerId) { this.managerId = managerId; markDirty(); }
+
+    // ----- Change tracking -----
+    public boolean isDirty() { return dirty; }
+
+    /** Record a change: flags the project for saving and gives it a new version */
+    public void markDirty() {
+        dirty = true;
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /** Changes whenever the project or one of its tasks changes; for caching derived values */
+    public long getVersion() { return version; }
+
+    /** Clear the dirty flag of the project and all of its tasks */
+    public synchronized void markClean() {
+        dirty = false;
+        if (tasks != null) for (Task t : tasks) t.markClean();
+    }
+
+    // ----- Lazy task loading -----
+
+    /** False while this project only holds its header and the loader has not run yet */
+    public boolean isTasksLoaded() { return tasks != null; }
+
+    /** When getTasks() was last called (System.nanoTime), used to pick lists to release */
+    public long getTasksLastAccess() { return tasksAccessed; }
+
+    /** Defer the task list to the loader; counts are reported until it runs */
+    public synchronized void setTaskLoader(Consumer<Project> loader, int taskCount, int completedCount) {
+        if (tasks != null) {
+            for (Task t : tasks) t.setParent(null);
+        }
+        tasks = null;
+        // Fresh list: views handed out earlier keep showing the old tasks
+        observableTasks = FXCollections.observableArrayList();
+        taskLoader = loader;
+        unloadedTaskCount = taskCount;
+        unloadedCompletedCount = completedCount;
+    }
+
+    /** Drop the loaded task list to save memory; it is fetched again on next access */
+    public synchronized void releaseTasks(Consumer<Project> loader) {
+        if (tasks == null) return;
+        setTaskLoader(loader, tasks.size(), completedCount);
+    }
+
+    /** Install a task list fetched by the loader; unlike setTasks() this is not a change */
+    public synchronized void attachTasks(List<Task> loaded) {
+        boolean wasDirty = dirty;
+        tasks = loaded != null ? loaded : new ArrayList<>();
+        taskLoader = null;
+        observableTasks.setAll(tasks);
+        for (Task t : tasks) t.markClean();
+        updateProgress();
+        dirty = wasDirty;
+    }
+
+    /**
+     * Take over the stored state of another copy of this project, e.g. one that
+     * another app instance saved. Like attachTasks() this is not a change, but
+     * it does give the project a new version.
+     */
+    public synchronized void replaceWith(Project stored) {
+        name = stored.name;
+        description = stored.description;
+        deadline = stored.deadline;
+        clientId = stored.clientId;
+        managerId = stored.managerId;
+        progress = stored.progress;
+
+        if (tasks != null) {
+            for (Task t : tasks) t.setParent(null);
+        }
+        taskLoader = null;
+        tasks = stored.tasks != null ? new ArrayList<>(stored.tasks) : new ArrayList<>();
+        observableTasks.setAll(tasks);
+        updateProgress();
+        markClean();
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Put a task instance back in place of the copy with the same id, e.g. one
+     * that was edited through a view kept from before the list was released.
+     */
+    public void reattach(Task task) {
+        getTasks();
+        synchronized (this) {
+            for (int i = 0; i < tasks.size(); i++) {
+                Task t = tasks.get(i);
+                if (t.getId().equals(task.getId())) {
+                    if (t == task) return;
+                    tasks.set(i, task);
+                    observableTasks.setAll(tasks);
+                    updateProgress();
+                    markDirty();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Copy of the task list if it is loaded, else null; never runs the loader */
+    public synchronized List<Task> loadedTasks() {
+        return tasks != null ? new ArrayList<>(tasks) : null;
+    }
 
     // ----- Task Management -----
     public ObservableList<Task> getTasks() {
-        // Sync observableTasks with plain list
-        if (observableTasks.isEmpty() && !tasks.isEmpty()) {
-            observableTasks.addAll(tasks);
+        tasksAccessed = System.nanoTime();
+        while (true) {
+            Consumer<Project> loader;
+            synchronized (this) {
+                if (tasks == null && taskLoader == null) tasks = new ArrayList<>(); // "tasks": null in the file
+                if (tasks != null) {
+                    // Sync observableTasks with plain list
+                    if (observableTasks.isEmpty() && !tasks.isEmpty()) {
+                        observableTasks.addAll(tasks);
+                    }
+                    return observableTasks;
+                }
+                loader = taskLoader;
+            }
+            // The loader takes the repository lock, so it runs outside the monitor;
+            // loop in case the list was released again before this thread got it back
+            loader.accept(this);
         }
-        return observableTasks;
     }
 
-    public void setTasks(List<Task> tasks) {
+    public synchronized void setTasks(List<Task> tasks) {
         this.tasks = tasks != null ? tasks : new ArrayList<>();
         observableTasks.setAll(this.tasks);
         updateProgress();
+        markDirty();
     }
 
     public void addTask(Task task) {
-        boolean exists = tasks.stream().anyMatch(t -> t.getId().equals(task.getId()));
-        if (!exists) {
-            tasks.add(task);
-            observableTasks.add(task);
-            updateProgress();
+        getTasks(); // make sure the observable view is synced before appending
+        synchronized (this) {
+            boolean exists = tasks.stream().anyMatch(t -> t.getId().equals(task.getId()));
+            if (!exists) {
+                tasks.add(task);
+                observableTasks.add(task);
+                task.setParent(this);
+                progressSum += task.getProgress();
+                if (task.isCompleted()) completedCount++;
+                refreshProgress();
+                markDirty();
+            }
         }
     }
 
-    public void updateProgress() {
-        if (tasks.isEmpty()) {
-            this.progress = 0;
-            return;
+    /** Recompute the running totals from scratch and (re)link every task to this project */
+    public synchronized void updateProgress() {
+        if (tasks == null) return; // header only: keep the stored progress
+        progressSum = 0;
+        completedCount = 0;
+        for (Task t : tasks) {
+            t.setParent(this);
+            progressSum += t.getProgress();
+            if (t.isCompleted()) completedCount++;
         }
-        double total = tasks.stream().mapToDouble(Task::getProgress).sum();
-        this.progress = total / tasks.size();
+        refreshProgress();
+    }
+
+    /** Called by a task of this project whenever its progress or completed flag changes */
+    synchronized void onTaskChanged(double oldProgress, double newProgress, boolean wasCompleted, boolean nowCompleted) {
+        progressSum += newProgress - oldProgress;
+        if (wasCompleted != nowCompleted) completedCount += nowCompleted ? 1 : -1;
+        refreshProgress();
+        markDirty();
     }
 
+    private void refreshProgress() {
+        this.progress = tasks.isEmpty() ? 0 : Math.max(0, progressSum / tasks.size());
+    }
+
+    /** Number of tasks currently marked completed */
+    public synchronized int getCompletedTaskCount() { return tasks != null ? completedCount : unloadedCompletedCount; }
+
+    /** Number of tasks in this project */
+    public synchronized int getTaskCount() { return tasks != null ? tasks.size() : unloadedTaskCount; }
+
     @Override
     public String toString() {
         return name + " (" + (int)progress + "%) - Deadline: " + deadline;
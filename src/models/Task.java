@@ -13,8 +13,15 @@ public class Task {
     private String description;
 
     private String assignedMemberId;
-    private boolean completed;
-    private double progress; // 0–100 progress value
+    private volatile boolean completed;
+    private volatile double progress; // 0–100 progress value
+
+    // Owning project, notified on every change so it can keep its progress current.
+    // Changed only while holding both the project's and this task's monitor
+    private transient volatile Project parent;
+
+    // Set by any change; cleared once the owning project's shard is written
+    private transient volatile boolean dirty = true;
 
     // ===== Constructors =====
     public Task() {}
@@ -42,22 +49,24 @@ public class Task {
 
     // ===== Getters & Setters =====
     public String getId() { return id; }
-    public void setId(String id) { this.id = id; }
+    public void setId(String id) { this.id = id; touch(); }
 
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; touch(); }
 
     public String getDescription() {
         return (description != null && !description.isEmpty()) ? description : name;
     }
 
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) { this.description = description; touch(); }
 
     public String getAssignedMemberId() { return assignedMemberId; }
-    public void setAssignedMemberId(String assignedMemberId) { this.assignedMemberId = assignedMemberId; }
+    public void setAssignedMemberId(String assignedMemberId) { this.assignedMemberId = assignedMemberId; touch(); }
 
     public boolean isCompleted() { return completed; }
-    public void setCompleted(boolean completed) { this.completed = completed; }
+    public void setCompleted(boolean completed) {
+        apply(-1, completed);
+    }
 
     public double getProgress() { return progress; }
 
@@ -65,9 +74,45 @@ public class Task {
     public void setProgress(double progress) {
         if (progress < 0) progress = 0;
         if (progress > 100) progress = 100;
+        apply(progress, progress >= 100);
+    }
+
+    /**
+     * Set progress (unless negative) and completed as one step, and report the
+     * change to the owning project under the project's monitor so concurrent
+     * updates can neither be lost nor double-counted in its totals.
+     */
+    private void apply(double newProgress, boolean newCompleted) {
+        while (true) {
+            Project p = parent;
+            synchronized (p != null ? p : this) {
+                synchronized (this) {
+                    if (parent != p) continue; // moved to another project meanwhile
+
+                    double oldProgress = progress;
+                    boolean wasCompleted = completed;
+                    if (newProgress >= 0) progress = newProgress;
+                    completed = newCompleted;
+                    if (progress == oldProgress && completed == wasCompleted) return;
+
+                    dirty = true;
+                    if (p != null) p.onTaskChanged(oldProgress, progress, wasCompleted, completed);
+                    return;
+                }
+            }
+        }
+    }
+
+    // Caller holds the monitor of the new parent (or of the old one when clearing)
+    synchronized void setParent(Project parent) { this.parent = parent; }
+
+    public boolean isDirty() { return dirty; }
+    void markClean() { dirty = false; }
 
-        this.progress = progress;
-        this.completed = (progress >= 100);
+    /** Mark this task and its project as changed */
+    private void touch() {
+        dirty = true;
+        if (parent != null) parent.markDirty();
     }
 
     @Override
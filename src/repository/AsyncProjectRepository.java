@@ -0,0 +1,73 @@
+package repository;
+
+import models.Project;
+import models.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ProjectRepository calls that run on the repository I/O thread, for callers
+ * such as the JavaFX application thread that must not wait on the disk.
+ * Calls run one at a time in the order they were made; each future completes
+ * once the change is applied and handed to the storage layer (use flush() to
+ * wait until it is on disk). Failures complete the future exceptionally.
+ */
+public class AsyncProjectRepository {
+
+    public static CompletableFuture<Void> loadAll() {
+        return IoExecutor.run(ProjectRepository::loadAll);
+    }
+
+    public static CompletableFuture<Void> saveAll() {
+        return IoExecutor.run(ProjectRepository::saveAll);
+    }
+
+    public static CompletableFuture<Void> add(Project project) {
+        return IoExecutor.run(() -> ProjectRepository.add(project));
+    }
+
+    public static CompletableFuture<Boolean> remove(Project project) {
+        return IoExecutor.call(() -> ProjectRepository.remove(project));
+    }
+
+    public static CompletableFuture<Void> delete(String id) {
+        return IoExecutor.run(() -> ProjectRepository.delete(id));
+    }
+
+    public static CompletableFuture<Void> addTask(Project project, Task task) {
+        return IoExecutor.run(() -> ProjectRepository.addTask(project, task));
+    }
+
+    public static CompletableFuture<Void> updateProject(Project project) {
+        return IoExecutor.run(() -> ProjectRepository.updateProject(project));
+    }
+
+    public static CompletableFuture<Void> updateProjectForTask(Task task) {
+        return IoExecutor.run(() -> ProjectRepository.updateProjectForTask(task));
+    }
+
+    /**
+     * Copy of the project's task list. In lazy mode a header-only project reads
+     * its shard first; if that fails the future completes exceptionally instead
+     * of getTasks() throwing on the caller's thread.
+     */
+    public static CompletableFuture<List<Task>> getTasks(Project project) {
+        return IoExecutor.call(() -> new ArrayList<>(project.getTasks()));
+    }
+
+    public static CompletableFuture<List<Project>> getAll() {
+        return IoExecutor.call(ProjectRepository::getAll);
+    }
+
+    /** Completes once every change submitted so far is on disk */
+    public static CompletableFuture<Void> flush() {
+        return IoExecutor.run(() -> {}).thenCompose(v -> ProjectRepository.flush());
+    }
+
+    /** Number of repository calls (projects and users) still waiting or running */
+    public static int pending() {
+        return IoExecutor.pending();
+    }
+}
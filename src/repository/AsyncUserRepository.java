@@ -0,0 +1,25 @@
+package repository;
+
+import models.User;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * UserRepository calls that run on the repository I/O thread; see
+ * AsyncProjectRepository for ordering and completion.
+ */
+public class AsyncUserRepository {
+
+    public static CompletableFuture<Void> loadAll() {
+        return IoExecutor.run(UserRepository::loadAll);
+    }
+
+    public static CompletableFuture<Void> saveAll() {
+        return IoExecutor.run(UserRepository::saveAll);
+    }
+
+    /** Completes with false if the email is taken; see UserRepository.add() */
+    public static CompletableFuture<Boolean> add(User u) {
+        return IoExecutor.call(() -> UserRepository.add(u));
+    }
+}
@@ -0,0 +1,48 @@
+package repository;
+
+import models.Project;
+import utils.AppConfig;
+import utils.JSONFileHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/** Every project in one projects.bin written by BinarySnapshotCodec, rewritten on each save */
+class BinaryProjectStore implements ProjectStore {
+
+    private final Path path;
+    private final boolean compress = AppConfig.compressedStorage();
+
+    BinaryProjectStore(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    @Override
+    public void load(Consumer<Project> sink) throws IOException {
+        try (InputStream in = JSONFileHandler.openInputStream(path.toString())) {
+            BinarySnapshotCodec.read(in, sink);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> save(List<Project> projects, Collection<String> deletedIds,
+                                        boolean membershipChanged) throws IOException {
+        return JSONFileHandler.writeBinary(path.toString(), out -> BinarySnapshotCodec.write(projects, out), compress);
+    }
+
+    @Override
+    public long bytesToLoad() {
+        return JSONFileHandler.sizeOf(path);
+    }
+}
@@ -0,0 +1,210 @@
+package repository;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import models.Project;
+import models.Task;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary alternative to the pretty-printed projects.json.
+ *
+ * Layout (big-endian, as written by DataOutputStream):
+ *   "SPMB" magic, int version
+ *   string table: int count, then count length-prefixed UTF-8 strings
+ *   int projectCount, then per project: int recordLength + record bytes
+ *
+ * Fields that repeat across many records (client, manager and member ids,
+ * deadlines) are stored once in the string table and referenced by index;
+ * everything else is written inline. Progress values are raw doubles.
+ * A task's description is stored as returned by getDescription(), so a
+ * missing description comes back as a copy of the task name.
+ */
+public class BinarySnapshotCodec {
+
+    private static final int MAGIC = 0x53504D42; // "SPMB"
+    private static final int VERSION = 1;
+    private static final int NULL = -1;
+
+    // ----- Writing -----
+
+    public static void write(Collection<Project> projects, OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+
+        Map<String, Integer> table = new LinkedHashMap<>();
+        for (Project p : projects) {
+            intern(table, p.getClientId());
+            intern(table, p.getManagerId());
+            intern(table, p.getDeadline());
+            for (Task t : p.getTasks()) intern(table, t.getAssignedMemberId());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(table.size());
+        for (String s : table.keySet()) writeString(out, s);
+
+        out.writeInt(projects.size());
+        ByteArrayOutputStream record = new ByteArrayOutputStream(1024);
+        DataOutputStream rec = new DataOutputStream(record);
+        for (Project p : projects) {
+            record.reset();
+            writeProject(rec, p, table);
+            out.writeInt(record.size());
+            record.writeTo(out);
+        }
+        out.flush();
+    }
+
+    private static void writeProject(DataOutputStream out, Project p, Map<String, Integer> table) throws IOException {
+        writeString(out, p.getId());
+        writeString(out, p.getName());
+        writeString(out, p.getDescription());
+        writeRef(out, table, p.getDeadline());
+        writeRef(out, table, p.getClientId());
+        writeRef(out, table, p.getManagerId());
+        out.writeDouble(p.getProgress());
+
+        List<Task> tasks = p.getTasks();
+        out.writeInt(tasks.size());
+        for (Task t : tasks) {
+            writeString(out, t.getId());
+            writeString(out, t.getName());
+            writeString(out, t.getDescription());
+            writeRef(out, table, t.getAssignedMemberId());
+            out.writeBoolean(t.isCompleted());
+            out.writeDouble(t.getProgress());
+        }
+    }
+
+    private static void intern(Map<String, Integer> table, String s) {
+        if (s != null) table.putIfAbsent(s, table.size());
+    }
+
+    private static void writeRef(DataOutputStream out, Map<String, Integer> table, String s) throws IOException {
+        out.writeInt(s == null ? NULL : table.get(s));
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // ----- Reading -----
+
+    /** Decode a snapshot, handing each project to the consumer as soon as it is read */
+    public static void read(InputStream is, Consumer<Project> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+
+        if (in.readInt() != MAGIC) throw new IOException("Not a binary project snapshot");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+        String[] table = new String[in.readInt()];
+        for (int i = 0; i < table.length; i++) table[i] = readString(in);
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            in.readInt(); // record length, only needed by readers that skip records
+            consumer.accept(readProject(in, table));
+        }
+    }
+
+    private static Project readProject(DataInputStream in, String[] table) throws IOException {
+        String id = readString(in);
+        String name = readString(in);
+        String description = readString(in);
+        String deadline = readRef(in, table);
+        String clientId = readRef(in, table);
+        String managerId = readRef(in, table);
+        double progress = in.readDouble();
+
+        Project p = new Project(id, name, description, deadline, clientId, managerId);
+        int taskCount = in.readInt();
+        List<Task> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Task t = new Task(readString(in), readString(in), readString(in), readRef(in, table), false);
+            boolean completed = in.readBoolean();
+            t.setProgress(in.readDouble());
+            t.setCompleted(completed);
+            tasks.add(t);
+        }
+        p.setTasks(tasks);
+        p.setProgress(progress);
+        return p;
+    }
+
+    private static String readRef(DataInputStream in, String[] table) throws IOException {
+        int ref = in.readInt();
+        return ref == NULL ? null : table[ref];
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len == NULL) return null;
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ----- Converters -----
+
+    /** Convert a projects.json file into a binary snapshot */
+    public static void jsonToBinary(Path json, Path binary) throws IOException {
+        Gson gson = new Gson();
+        List<Project> projects = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(json, StandardCharsets.UTF_8))) {
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Project p = gson.fromJson(reader, Project.class);
+                    if (p != null) projects.add(p);
+                }
+                reader.endArray();
+            }
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(binary))) {
+            write(projects, out);
+        }
+    }
+
+    /** Convert a binary snapshot back into pretty-printed projects.json */
+    public static void binaryToJson(Path binary, Path json) throws IOException {
+        Gson gson = new Gson();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(binary));
+             JsonWriter out = new JsonWriter(Files.newBufferedWriter(json, StandardCharsets.UTF_8))) {
+            out.setIndent("  ");
+            out.beginArray();
+            read(in, p -> gson.toJson(p, Project.class, out));
+            out.endArray();
+        }
+    }
+
+    /** Usage: BinarySnapshotCodec to-binary|to-json &lt;input&gt; &lt;output&gt; */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BinarySnapshotCodec to-binary|to-json <input> <output>");
+            System.exit(2);
+        }
+        switch (args[0]) {
+            case "to-binary": jsonToBinary(Path.of(args[1]), Path.of(args[2])); break;
+            case "to-json": binaryToJson(Path.of(args[1]), Path.of(args[2])); break;
+            default:
+                System.err.println("Unknown mode: " + args[0]);
+                System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single background thread that runs repository calls for the async facades.
+ * One thread keeps the calls in submission order, so an add followed by a
+ * remove of the same project is applied in that order.
+ */
+class IoExecutor {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "repository-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicInteger pending = new AtomicInteger();
+
+    static CompletableFuture<Void> run(Runnable action) {
+        return call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static <T> CompletableFuture<T> call(Supplier<T> action) {
+        pending.incrementAndGet();
+        return CompletableFuture.supplyAsync(action, executor)
+                .whenComplete((v, ex) -> pending.decrementAndGet());
+    }
+
+    /** Number of calls submitted but not finished yet */
+    static int pending() {
+        return pending.get();
+    }
+
+    /** Run every call submitted so far, then stop accepting new ones */
+    static void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("repository-io: calls still pending at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import models.Project;
+import utils.AppConfig;
+import utils.JSONFileHandler;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/** Default store: every project in one pretty-printed projects.json, rewritten on each save */
+class JsonProjectStore implements ProjectStore {
+
+    private final Path path;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final boolean compress = AppConfig.compressedStorage();
+
+    JsonProjectStore(Path path) {
+        this.path = path;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    /** Stream projects one at a time instead of reading the whole file into a String */
+    @Override
+    public void load(Consumer<Project> sink) throws IOException {
+        try (JsonReader reader = new JsonReader(JSONFileHandler.openReader(path.toString()))) {
+            if (isEmptyDocument(reader)) {
+                JSONFileHandler.write(path.toString(), "[]");
+            } else if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Project p = gson.fromJson(reader, Project.class);
+                    if (p != null) sink.accept(p);
+                }
+                reader.endArray();
+            }
+        }
+    }
+
+    private static boolean isEmptyDocument(JsonReader reader) throws IOException {
+        try {
+            return reader.peek() == JsonToken.END_DOCUMENT;
+        } catch (EOFException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> save(List<Project> projects, Collection<String> deletedIds,
+                                        boolean membershipChanged) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        // Stream each project straight to the file instead of building one big String
+        return JSONFileHandler.write(path.toString(), w -> {
+            JsonWriter out = new JsonWriter(w);
+            out.setIndent("  ");
+            out.beginArray();
+            for (Project p : projects) {
+                gson.toJson(p, Project.class, out);
+            }
+            out.endArray();
+            out.flush();
+        }, compress);
+    }
+
+    @Override
+    public long bytesToLoad() {
+        return JSONFileHandler.sizeOf(path);
+    }
+}
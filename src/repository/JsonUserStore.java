@@ -0,0 +1,103 @@
+package repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import models.*;
+import utils.AppConfig;
+import utils.JSONFileHandler;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/** Default store: every user in one pretty-printed users.json, with its role stored alongside */
+class JsonUserStore implements UserStore {
+
+    private final Path path;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final boolean compress = AppConfig.compressedStorage();
+
+    JsonUserStore(Path path) {
+        this.path = path;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    @Override
+    public List<User> load() throws IOException {
+        // Stream users one at a time instead of reading the whole file into a String
+        try (JsonReader reader = new JsonReader(JSONFileHandler.openReader(path.toString()))) {
+            if (isEmptyDocument(reader)) return null;
+
+            List<User> loaded = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                loaded.add(fromJson(gson, JsonParser.parseReader(reader).getAsJsonObject()));
+            }
+            reader.endArray();
+            return loaded;
+        }
+    }
+
+    /** The user subclass named by the stored role; unknown roles load as members */
+    static User fromJson(Gson gson, JsonObject jo) {
+        String role = jo.get("role").getAsString();
+        switch (role) {
+            case "ADMIN": return gson.fromJson(jo, Admin.class);
+            case "MANAGER": return gson.fromJson(jo, Manager.class);
+            case "MEMBER": return gson.fromJson(jo, Member.class);
+            case "CLIENT": return gson.fromJson(jo, Client.class);
+            default: return gson.fromJson(jo, Member.class);
+        }
+    }
+
+    static JsonObject toJson(Gson gson, User u) {
+        JsonObject jo = (JsonObject) gson.toJsonTree(u);
+        jo.addProperty("role", u.getRole());
+        return jo;
+    }
+
+    private static boolean isEmptyDocument(JsonReader reader) throws IOException {
+        try {
+            return reader.peek() == JsonToken.END_DOCUMENT;
+        } catch (EOFException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> save(List<User> users) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        return JSONFileHandler.write(path.toString(), w -> {
+            JsonWriter out = new JsonWriter(w);
+            out.setIndent("  ");
+            out.beginArray();
+            for (User u : users) {
+                gson.toJson(toJson(gson, u), out);
+            }
+            out.endArray();
+            out.flush();
+        }, compress);
+    }
+
+    @Override
+    public long bytesToLoad() {
+        return JSONFileHandler.sizeOf(path);
+    }
+}
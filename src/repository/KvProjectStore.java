@@ -0,0 +1,200 @@
+package repository;
+
+import com.google.gson.Gson;
+import models.Project;
+import utils.JSONFileHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Projects in an embedded KvStore (data/store/projects.kv), one value per
+ * project, so a save appends only the projects that changed. Besides
+ * "p/&lt;id&gt;" holding the project, empty-valued keys ("s/&lt;seq&gt;") keep
+ * the display order. Lookups by manager or client are answered by the
+ * repository's in-memory ProjectIndex, so the store keeps no index for them.
+ */
+class KvProjectStore implements ProjectStore {
+
+    private static final String PROJECT = "p/";
+    private static final String ORDER = "s/";
+    // Manager and client index keys written by earlier versions; removed when the store is opened
+    private static final String[] RETIRED = {"m/", "c/"};
+    private static final String CREATED = "meta/created";
+    // Ends the variable part of index keys; sorts before any character an id can contain
+    private static final char SEP = '\0';
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path file;
+    private final Gson gson = new Gson();
+    private KvStore kv;
+    // Order key of every stored project, or null if a crash cut its batch short
+    private final Map<String, String> keys = new HashMap<>();
+    private long nextSeq = 0;
+
+    KvProjectStore(Path file) {
+        this.file = file;
+    }
+
+    /** Open the store on first use and read back each project's order key */
+    private synchronized KvStore kv() throws IOException {
+        if (kv != null) return kv;
+        kv = new KvStore(file);
+        Map<String, String> order = new HashMap<>();
+        for (String k : kv.keys(ORDER)) {
+            order.put(idOf(k), k);
+            nextSeq = Math.max(nextSeq, Long.parseLong(k.substring(ORDER.length(), k.indexOf(SEP)), 16) + 1);
+        }
+        for (String k : kv.keys(PROJECT)) {
+            String id = k.substring(PROJECT.length());
+            keys.put(id, order.get(id));
+        }
+        KvStore.Batch retired = new KvStore.Batch();
+        boolean any = false;
+        for (String prefix : RETIRED) {
+            for (String k : kv.keys(prefix)) {
+                retired.delete(k);
+                any = true;
+            }
+        }
+        if (any) kv.write(retired);
+        return kv;
+    }
+
+    private static String idOf(String indexKey) {
+        return indexKey.substring(indexKey.indexOf(SEP) + 1);
+    }
+
+    @Override
+    public synchronized boolean exists() {
+        try {
+            return kv().contains(CREATED);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void load(Consumer<Project> sink) throws IOException {
+        kv();
+        // A crash can cut a batch short, so projects without an order key go last
+        List<String> ids = new ArrayList<>(keys.keySet());
+        ids.sort(Comparator.comparing((String id) -> keys.get(id) == null)
+                .thenComparing(id -> Objects.toString(keys.get(id), id)));
+        for (String id : ids) {
+            Project p = read(id);
+            if (p != null) sink.accept(p);
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> save(List<Project> projects, Collection<String> deletedIds,
+                                                     boolean membershipChanged) throws IOException {
+        KvStore store = kv();
+        KvStore.Batch batch = new KvStore.Batch();
+        Map<String, String> updated = new HashMap<>();
+        List<Project> written = new ArrayList<>();
+        long seq = nextSeq;
+
+        for (String id : deletedIds) {
+            if (!keys.containsKey(id)) continue;
+            String oldOrder = keys.get(id);
+            batch.delete(PROJECT + id);
+            if (oldOrder != null) batch.delete(oldOrder);
+            updated.put(id, null);
+        }
+
+        for (Project p : projects) {
+            if (!p.isDirty()) continue;
+            p.getTasks(); // a header-only project needs its tasks before it can be written
+            // Clear first: a change made while the batch is being written marks it dirty again
+            p.markClean();
+            written.add(p);
+
+            String id = p.getId();
+            String oldOrder = updated.containsKey(id) ? null : keys.get(id);
+            String order = oldOrder != null ? oldOrder : ORDER + String.format("%016x", seq++) + SEP + id;
+
+            batch.put(PROJECT + id, gson.toJson(p, Project.class).getBytes(StandardCharsets.UTF_8));
+            if (oldOrder == null) batch.put(order, EMPTY);
+            updated.put(id, order);
+        }
+        if (!store.contains(CREATED)) batch.put(CREATED, EMPTY);
+
+        try {
+            store.write(batch);
+        } catch (IOException | RuntimeException e) {
+            for (Project p : written) p.markDirty();
+            throw e;
+        }
+        nextSeq = seq;
+        for (Map.Entry<String, String> e : updated.entrySet()) {
+            if (e.getValue() == null) keys.remove(e.getKey());
+            else keys.put(e.getKey(), e.getValue());
+        }
+        return JSONFileHandler.sync();
+    }
+
+    /** One stored project, or null */
+    synchronized Project read(String id) throws IOException {
+        byte[] value = kv().get(PROJECT + id);
+        return value != null ? gson.fromJson(new String(value, StandardCharsets.UTF_8), Project.class) : null;
+    }
+
+    @Override
+    public synchronized long bytesToLoad() throws IOException {
+        return kv().fileSize();
+    }
+
+    /** Rewrite the log with only the live records */
+    synchronized void compact() throws IOException {
+        kv().compact();
+    }
+
+    /** Number of stored projects */
+    synchronized int size() throws IOException {
+        kv();
+        return keys.size();
+    }
+
+    /** Usage: KvProjectStore &lt;projects.kv&gt; import &lt;projects.json&gt; | get &lt;id&gt; | compact */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || (!args[1].equals("compact") && args.length != 3)) {
+            System.err.println("Usage: KvProjectStore <projects.kv> import <projects.json> | get <id> | compact");
+            System.exit(2);
+        }
+        KvProjectStore store = new KvProjectStore(Path.of(args[0]));
+        Gson out = new Gson();
+        switch (args[1]) {
+            case "import":
+                List<Project> projects = new ArrayList<>();
+                new JsonProjectStore(Path.of(args[2])).load(projects::add);
+                store.save(projects, List.of(), true).join();
+                System.out.println("Imported " + projects.size() + " projects, " + store.size() + " stored");
+                break;
+            case "get":
+                Project p = store.read(args[2]);
+                System.out.println(p != null ? out.toJson(p) : "No project " + args[2]);
+                break;
+            case "compact":
+                store.compact();
+                System.out.println("Compacted to " + store.bytesToLoad() + " bytes");
+                break;
+            default:
+                System.err.println("Unknown command: " + args[1]);
+                System.exit(2);
+        }
+        store.kv().close();
+    }
+}
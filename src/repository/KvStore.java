@@ -0,0 +1,258 @@
+package repository;
+
+import utils.JSONFileHandler;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key-value store: an append-only log file of records plus an
+ * in-memory sorted index from each key to its latest value in the log.
+ * Point reads cost one positioned read, writes are appended in batches and
+ * made durable with one commitAppend(), and since keys are kept sorted a
+ * prefix scan touches only the matching records.
+ *
+ * Record layout: int crc, int key length, int value length (-1 = deleted),
+ * key (UTF-8), value. A record cut off by a crash is dropped on open. Once
+ * most of the file is overwritten or deleted values, the live records are
+ * copied to a new file that replaces the old one.
+ */
+class KvStore implements Closeable {
+
+    private static final int HEADER = 12;
+    private static final int DELETED = -1;
+    // Files smaller than this are never compacted
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+
+    /** Where the latest value of a key is in the file */
+    private static class Slot {
+        final long valuePos;
+        final int valueLen;
+        final long recordLen;
+
+        Slot(long valuePos, int valueLen, long recordLen) {
+            this.valuePos = valuePos;
+            this.valueLen = valueLen;
+            this.recordLen = recordLen;
+        }
+    }
+
+    /** Puts and deletes that are written together */
+    static class Batch {
+        // Insertion ordered; a later operation on the same key replaces an earlier one
+        private final Map<String, byte[]> ops = new LinkedHashMap<>();
+
+        Batch put(String key, byte[] value) {
+            ops.put(key, value);
+            return this;
+        }
+
+        Batch delete(String key) {
+            ops.put(key, null);
+            return this;
+        }
+
+        boolean isEmpty() {
+            return ops.isEmpty();
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private final TreeMap<String, Slot> index = new TreeMap<>();
+    private long end;        // bytes of valid records in the file
+    private long liveBytes;  // bytes of the records the index points to
+
+    KvStore(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        recover();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() > end) {
+            System.err.println("Dropping " + (channel.size() - end) + " bytes of incomplete records from " + file);
+            channel.truncate(end);
+        }
+    }
+
+    /**
+     * Rebuild the index by reading every record up to the first incomplete or
+     * corrupt one. Lengths are checked against the bytes left in the file before
+     * anything is allocated, and an empty key (e.g. a zero-filled tail, whose
+     * checksum is also zero) ends the valid records too.
+     */
+    private void recover() throws IOException {
+        if (!Files.exists(file)) return;
+        long size = Files.size(file);
+        try (DataInputStream in = new DataInputStream(JSONFileHandler.openRawInputStream(file.toString()))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int sum, keyLen, valueLen;
+                byte[] key, value;
+                try {
+                    sum = in.readInt();
+                    keyLen = in.readInt();
+                    valueLen = in.readInt();
+                    long left = size - end - HEADER;
+                    if (keyLen <= 0 || valueLen < DELETED || (long) keyLen + Math.max(0, valueLen) > left) return;
+                    key = new byte[keyLen];
+                    in.readFully(key);
+                    value = new byte[Math.max(0, valueLen)];
+                    in.readFully(value);
+                } catch (EOFException torn) {
+                    return;
+                }
+                crc.reset();
+                crc.update(key);
+                crc.update(value);
+                if ((int) crc.getValue() != sum) return;
+
+                long recordLen = HEADER + keyLen + Math.max(0, valueLen);
+                apply(new String(key, StandardCharsets.UTF_8), end + HEADER + keyLen, valueLen, recordLen);
+                end += recordLen;
+            }
+        }
+    }
+
+    private void apply(String key, long valuePos, int valueLen, long recordLen) {
+        Slot old = valueLen == DELETED ? index.remove(key) : index.put(key, new Slot(valuePos, valueLen, recordLen));
+        if (old != null) liveBytes -= old.recordLen;
+        if (valueLen != DELETED) liveBytes += recordLen;
+    }
+
+    /** The value stored under the key, or null */
+    synchronized byte[] get(String key) throws IOException {
+        Slot slot = index.get(key);
+        if (slot == null) return null;
+        ByteBuffer buf = ByteBuffer.allocate(slot.valueLen);
+        long pos = slot.valuePos;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos + buf.position());
+            if (n < 0) throw new EOFException("Value of " + key + " is cut off in " + file);
+        }
+        return buf.array();
+    }
+
+    synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /** Keys starting with the prefix, in sorted order */
+    synchronized List<String> keys(String prefix) {
+        // Every key with the prefix sorts between the prefix itself and prefix + U+FFFF
+        return new ArrayList<>(index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet());
+    }
+
+    synchronized int size(String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).size();
+    }
+
+    /** Append the batch and make it durable according to the durability policy */
+    synchronized void write(Batch batch) throws IOException {
+        if (batch.isEmpty()) return;
+
+        CRC32 crc = new CRC32();
+        List<ByteBuffer> records = new ArrayList<>(batch.ops.size());
+        for (Map.Entry<String, byte[]> op : batch.ops.entrySet()) {
+            byte[] key = op.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = op.getValue();
+            if (value == null && !index.containsKey(op.getKey())) continue; // nothing to delete
+
+            crc.reset();
+            crc.update(key);
+            if (value != null) crc.update(value);
+            ByteBuffer rec = ByteBuffer.allocate(HEADER + key.length + (value != null ? value.length : 0));
+            rec.putInt((int) crc.getValue()).putInt(key.length).putInt(value != null ? value.length : DELETED);
+            rec.put(key);
+            if (value != null) rec.put(value);
+            rec.flip();
+            records.add(rec);
+        }
+        if (records.isEmpty()) return;
+
+        long pos = end;
+        try {
+            for (ByteBuffer rec : records) {
+                while (rec.hasRemaining()) pos += channel.write(rec, pos);
+            }
+            JSONFileHandler.commitAppend(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.truncate(end); // no half-written batch for the next open to find
+            throw e;
+        }
+
+        // Only point the index at the new records once they are all written
+        long at = end;
+        for (ByteBuffer rec : records) {
+            rec.rewind();
+            rec.getInt();
+            int keyLen = rec.getInt();
+            int valueLen = rec.getInt();
+            byte[] key = new byte[keyLen];
+            rec.get(key);
+            apply(new String(key, StandardCharsets.UTF_8), at + HEADER + keyLen, valueLen, rec.limit());
+            at += rec.limit();
+        }
+        end = pos;
+
+        if (end > COMPACT_MIN_BYTES && end - liveBytes > liveBytes) compact();
+    }
+
+    /** Copy the live records to a new file and switch over to it */
+    synchronized void compact() throws IOException {
+        JSONFileHandler.sync().join(); // group commit may still be forcing the old channel
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        TreeMap<String, Slot> moved = new TreeMap<>();
+        long pos = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            for (Map.Entry<String, Slot> e : index.entrySet()) {
+                byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] value = get(e.getKey());
+                crc.reset();
+                crc.update(key);
+                crc.update(value);
+                ByteBuffer rec = ByteBuffer.allocate(HEADER + key.length + value.length);
+                rec.putInt((int) crc.getValue()).putInt(key.length).putInt(value.length).put(key).put(value);
+                rec.flip();
+                moved.put(e.getKey(), new Slot(pos + HEADER + key.length, value.length, rec.limit()));
+                while (rec.hasRemaining()) pos += out.write(rec, pos);
+            }
+            out.force(false);
+        }
+
+        channel.close();
+        JSONFileHandler.replace(temp, file);
+        // Records appended from now on go to the new file, so the rename must survive a crash
+        JSONFileHandler.forceDirectory(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        index.putAll(moved);
+        end = pos;
+        liveBytes = pos;
+    }
+
+    /** Bytes of the log file, for progress reporting */
+    synchronized long fileSize() {
+        return end;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
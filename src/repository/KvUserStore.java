@@ -0,0 +1,108 @@
+package repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import models.User;
+import utils.JSONFileHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Users in an embedded KvStore (data/store/users.kv), one value per user
+ * under "u/&lt;id&gt;". Registering a user appends just that user, and a full
+ * save writes only the users whose stored form changed.
+ */
+class KvUserStore implements UserStore {
+
+    private static final String USER = "u/";
+    private static final String CREATED = "meta/created";
+
+    private final Path file;
+    private final Gson gson = new Gson();
+    private KvStore kv;
+    // Stored form of every user, to tell which ones a save has to write
+    private final Map<String, byte[]> stored = new HashMap<>();
+
+    KvUserStore(Path file) {
+        this.file = file;
+    }
+
+    private synchronized KvStore kv() throws IOException {
+        if (kv == null) kv = new KvStore(file);
+        return kv;
+    }
+
+    @Override
+    public synchronized boolean exists() {
+        try {
+            return kv().contains(CREATED);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized List<User> load() throws IOException {
+        stored.clear();
+        List<User> users = new ArrayList<>();
+        for (String key : kv().keys(USER)) {
+            byte[] value = kv().get(key);
+            users.add(JsonUserStore.fromJson(gson, JsonParser.parseString(new String(value, StandardCharsets.UTF_8)).getAsJsonObject()));
+            stored.put(key.substring(USER.length()), value);
+        }
+        return users.isEmpty() ? null : users;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> save(List<User> users) throws IOException {
+        KvStore.Batch batch = new KvStore.Batch();
+        Map<String, byte[]> written = new HashMap<>();
+        Set<String> present = new HashSet<>();
+        for (User u : users) {
+            present.add(u.getId());
+            byte[] value = encode(u);
+            if (Arrays.equals(value, stored.get(u.getId()))) continue;
+            batch.put(USER + u.getId(), value);
+            written.put(u.getId(), value);
+        }
+        for (String id : stored.keySet()) {
+            if (!present.contains(id)) batch.delete(USER + id);
+        }
+        if (!kv().contains(CREATED)) batch.put(CREATED, new byte[0]);
+
+        kv().write(batch);
+        stored.keySet().retainAll(present);
+        stored.putAll(written);
+        return JSONFileHandler.sync();
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> added(List<User> users, User user) throws IOException {
+        byte[] value = encode(user);
+        KvStore.Batch batch = new KvStore.Batch().put(USER + user.getId(), value);
+        if (!kv().contains(CREATED)) batch.put(CREATED, new byte[0]);
+        kv().write(batch);
+        stored.put(user.getId(), value);
+        return JSONFileHandler.sync();
+    }
+
+    private byte[] encode(User u) {
+        return gson.toJson(JsonUserStore.toJson(gson, u)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized long bytesToLoad() throws IOException {
+        return kv().fileSize();
+    }
+}
@@ -0,0 +1,45 @@
+package repository;
+
+import models.Project;
+import models.Task;
+
+/**
+ * One change to the stored projects, as handed to ProjectRepository change
+ * listeners. The project is always set, the task only for task changes.
+ */
+public class ProjectChange {
+
+    public enum Type {
+        PROJECT_ADDED,
+        PROJECT_REMOVED,
+        /** Name, deadline, manager or client; anything, including the tasks, if external */
+        PROJECT_UPDATED,
+        TASK_ADDED,
+        /** Progress or completed flag */
+        TASK_CHANGED
+    }
+
+    private final Type type;
+    private final Project project;
+    private final Task task;
+    private final boolean external;
+
+    ProjectChange(Type type, Project project, Task task, boolean external) {
+        this.type = type;
+        this.project = project;
+        this.task = task;
+        this.external = external;
+    }
+
+    public Type getType() { return type; }
+    public Project getProject() { return project; }
+    public Task getTask() { return task; }
+
+    /** True if another app instance made the change (shared data dir only) */
+    public boolean isExternal() { return external; }
+
+    @Override
+    public String toString() {
+        return type + " " + project.getId() + (task != null ? " task " + task.getId() : "") + (external ? " (external)" : "");
+    }
+}
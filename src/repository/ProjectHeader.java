@@ -0,0 +1,100 @@
+package repository;
+
+import models.Project;
+import models.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything the dashboards and the workload index need from a project
+ * without its task list, as stored in data/projects/headers.json.
+ * Size and modification time of the shard it was taken from tell whether
+ * the header is still current after a crash between the two writes.
+ */
+class ProjectHeader {
+
+    /** Open work of one member within the project */
+    static class MemberLoad {
+        int openTasks;
+        double remaining;
+    }
+
+    String id;
+    String name;
+    String description;
+    String deadline;
+    double progress;
+    String clientId;
+    String managerId;
+    int taskCount;
+    int completedCount;
+    Map<String, MemberLoad> load = new HashMap<>();
+    long shardSize;
+    long shardModified;
+    // Only set on a headers.log record dropping the header of a removed project
+    Boolean removed;
+
+    /** Summarize a project whose tasks are loaded */
+    static ProjectHeader of(Project p) {
+        ProjectHeader h = new ProjectHeader();
+        h.id = p.getId();
+        h.name = p.getName();
+        h.description = p.getDescription();
+        h.deadline = p.getDeadline();
+        h.progress = p.getProgress();
+        h.clientId = p.getClientId();
+        h.managerId = p.getManagerId();
+        h.taskCount = p.getTaskCount();
+        h.completedCount = p.getCompletedTaskCount();
+        for (Task t : p.getTasks()) {
+            if (t.isCompleted() || t.getAssignedMemberId() == null) continue;
+            MemberLoad l = h.load.computeIfAbsent(t.getAssignedMemberId(), k -> new MemberLoad());
+            l.openTasks++;
+            l.remaining += 100 - t.getProgress();
+        }
+        return h;
+    }
+
+    /** headers.log record for a removed project */
+    static ProjectHeader removed(String id) {
+        ProjectHeader h = new ProjectHeader();
+        h.id = id;
+        h.load = null;
+        h.removed = true;
+        return h;
+    }
+
+    boolean isRemoved() {
+        return Boolean.TRUE.equals(removed);
+    }
+
+    /** A project holding only the header fields; the caller installs a task loader */
+    Project toProject() {
+        Project p = new Project(id, name, description, deadline, clientId, managerId);
+        p.setProgress(progress);
+        return p;
+    }
+
+    void stamp(Path shard) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(shard, BasicFileAttributes.class);
+        shardSize = attrs.size();
+        shardModified = attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+    }
+
+    /** True if the shard is still the file this header was taken from */
+    boolean matches(Path shard) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(shard, BasicFileAttributes.class);
+            return attrs.size() == shardSize
+                    && attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS) == shardModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
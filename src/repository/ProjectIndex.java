@@ -0,0 +1,115 @@
+package repository;
+
+import models.Project;
+import models.Task;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash indexes over the project list: id, manager, client and owning project
+ * of each task. Manager/client keys are remembered per project so a project
+ * can be moved between buckets after its fields change.
+ *
+ * Lookups by id and task owner read concurrent maps without locking; the
+ * manager/client buckets and all updates are guarded by this index's monitor.
+ */
+class ProjectIndex {
+
+    private final Map<String, Project> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Project>> byManager = new HashMap<>();
+    private final Map<String, Set<Project>> byClient = new HashMap<>();
+    private final Map<String, Project> taskOwner = new ConcurrentHashMap<>();
+
+    // Keys each project is currently filed under
+    private final Map<String, String> indexedManager = new HashMap<>();
+    private final Map<String, String> indexedClient = new HashMap<>();
+
+    synchronized void clear() {
+        byId.clear();
+        byManager.clear();
+        byClient.clear();
+        taskOwner.clear();
+        indexedManager.clear();
+        indexedClient.clear();
+    }
+
+    synchronized void rebuild(List<Project> projects) {
+        clear();
+        for (Project p : projects) add(p);
+    }
+
+    synchronized void add(Project p) {
+        byId.put(p.getId(), p);
+        file(byManager, indexedManager, p, p.getManagerId());
+        file(byClient, indexedClient, p, p.getClientId());
+        // Header-only projects register their tasks once they are loaded
+        if (p.isTasksLoaded()) {
+            for (Task t : p.getTasks()) taskOwner.put(t.getId(), p);
+        }
+    }
+
+    synchronized void remove(Project p) {
+        byId.remove(p.getId());
+        unfile(byManager, indexedManager, p);
+        unfile(byClient, indexedClient, p);
+        removeTasks(p);
+    }
+
+    /** Drop the task-owner entries of a project, e.g. before its task list is replaced */
+    synchronized void removeTasks(Project p) {
+        List<Task> tasks = p.loadedTasks();
+        if (tasks != null) {
+            for (Task t : tasks) taskOwner.remove(t.getId());
+        } else {
+            // Header only: its shard may be gone already, so drop its entries without loading it
+            taskOwner.values().removeIf(owner -> owner == p);
+        }
+    }
+
+    /** Move a project to the right manager/client buckets after those fields changed */
+    synchronized void update(Project p) {
+        unfile(byManager, indexedManager, p);
+        unfile(byClient, indexedClient, p);
+        file(byManager, indexedManager, p, p.getManagerId());
+        file(byClient, indexedClient, p, p.getClientId());
+    }
+
+    synchronized void addTask(Project p, Task t) {
+        taskOwner.put(t.getId(), p);
+    }
+
+    Project byId(String id) {
+        return byId.get(id);
+    }
+
+    synchronized List<Project> byManager(String managerId) {
+        Set<Project> bucket = byManager.get(managerId);
+        return bucket != null ? new ArrayList<>(bucket) : new ArrayList<>();
+    }
+
+    synchronized List<Project> byClient(String clientId) {
+        Set<Project> bucket = byClient.get(clientId);
+        return bucket != null ? new ArrayList<>(bucket) : new ArrayList<>();
+    }
+
+    Project ownerOf(String taskId) {
+        return taskOwner.get(taskId);
+    }
+
+    private static void file(Map<String, Set<Project>> buckets, Map<String, String> keys, Project p, String key) {
+        if (key == null) return;
+        buckets.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(p);
+        keys.put(p.getId(), key);
+    }
+
+    private static void unfile(Map<String, Set<Project>> buckets, Map<String, String> keys, Project p) {
+        String key = keys.remove(p.getId());
+        if (key == null) return;
+        Set<Project> bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(p);
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import models.Project;
+import models.Task;
+import utils.JSONFileHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of project mutations (one compact JSON record per line).
+ * Records are replayed on top of the last projects.json snapshot at startup.
+ * Replay is idempotent, so a crash between writing a snapshot and truncating
+ * the journal only re-applies changes that are already in the snapshot.
+ */
+class ProjectJournal {
+
+    static final String PROJECT_ADDED = "PROJECT_ADDED";
+    static final String PROJECT_UPDATED = "PROJECT_UPDATED";
+    static final String PROJECT_DELETED = "PROJECT_DELETED";
+    static final String TASK_ADDED = "TASK_ADDED";
+    static final String TASK_UPDATED = "TASK_UPDATED";
+
+    private final Path path;
+    private final Gson gson = new Gson();
+    private FileChannel channel;
+    private int records = 0;
+    // End of the last complete record found by replay(), or -1; bytes past it are cut before the next append
+    private long validEnd = -1;
+
+    ProjectJournal(Path path) {
+        this.path = path;
+    }
+
+    /** Number of records appended since the last snapshot */
+    int size() {
+        return records;
+    }
+
+    // ----- Record builders -----
+
+    void projectAdded(Project p) throws IOException {
+        JsonObject rec = record(PROJECT_ADDED, p.getId());
+        rec.add("project", gson.toJsonTree(p));
+        append(rec);
+    }
+
+    void projectUpdated(Project p) throws IOException {
+        JsonObject rec = record(PROJECT_UPDATED, p.getId());
+        rec.addProperty("name", p.getName());
+        rec.addProperty("description", p.getDescription());
+        rec.addProperty("deadline", p.getDeadline());
+        rec.addProperty("clientId", p.getClientId());
+        rec.addProperty("managerId", p.getManagerId());
+        append(rec);
+    }
+
+    void projectDeleted(String projectId) throws IOException {
+        append(record(PROJECT_DELETED, projectId));
+    }
+
+    void taskAdded(Project p, Task t) throws IOException {
+        JsonObject rec = record(TASK_ADDED, p.getId());
+        rec.add("task", gson.toJsonTree(t));
+        append(rec);
+    }
+
+    void taskUpdated(Project p, Task t) throws IOException {
+        JsonObject rec = record(TASK_UPDATED, p.getId());
+        rec.addProperty("taskId", t.getId());
+        rec.addProperty("progress", t.getProgress());
+        rec.addProperty("completed", t.isCompleted());
+        append(rec);
+    }
+
+    private JsonObject record(String op, String projectId) {
+        JsonObject rec = new JsonObject();
+        rec.addProperty("op", op);
+        rec.addProperty("projectId", projectId);
+        return rec;
+    }
+
+    // ----- File operations -----
+
+    /** Append one record; on failure nothing of it is left in the file */
+    private void append(JsonObject rec) throws IOException {
+        if (channel == null) {
+            Files.createDirectories(path.getParent());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        if (validEnd >= 0) {
+            // A record appended after a torn one would be skipped by the next replay
+            if (channel.size() > validEnd) {
+                System.err.println("Journal: dropping " + (channel.size() - validEnd)
+                        + " bytes of a torn record at offset " + validEnd);
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+            validEnd = -1;
+        }
+        byte[] line = (gson.toJson(rec) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(line);
+        long end = channel.size();
+        try {
+            while (buf.hasRemaining()) channel.write(buf);
+            JSONFileHandler.commitAppend(channel);
+        } catch (IOException e) {
+            // Replay stops at a torn line, which would hide every record appended after it
+            try {
+                channel.truncate(end);
+            } catch (IOException ignored) {
+                // Still reported through e; at worst replay stops at the torn line
+            }
+            throw e;
+        }
+        records++;
+    }
+
+    /** Discard all records; called right after a snapshot has been written */
+    void truncate() throws IOException {
+        if (channel != null) {
+            channel.truncate(0);
+        } else if (Files.exists(path)) {
+            Files.write(path, new byte[0]);
+        }
+        records = 0;
+        validEnd = -1;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Apply every record in the journal to the given project list; returns
+     * records applied. A record is complete once its newline is written, so
+     * replay stops at the first line that lacks one or does not parse (cut off
+     * by a crash mid-append); the next append first truncates the file there.
+     */
+    int replay(List<Project> projects) {
+        validEnd = -1;
+        if (!Files.exists(path)) return 0;
+
+        Map<String, Project> byId = new HashMap<>();
+        for (Project p : projects) byId.put(p.getId(), p);
+
+        int applied = 0;
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            int start = 0;
+            for (int nl; start < bytes.length && (nl = indexOf(bytes, (byte) '\n', start)) >= 0; start = nl + 1) {
+                String line = new String(bytes, start, nl - start, StandardCharsets.UTF_8);
+                if (line.isBlank()) continue;
+                JsonObject rec;
+                try {
+                    rec = JsonParser.parseString(line).getAsJsonObject();
+                } catch (RuntimeException torn) {
+                    break;
+                }
+                apply(rec, projects, byId);
+                applied++;
+            }
+            validEnd = start;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        records = applied;
+        return applied;
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) return i;
+        }
+        return -1;
+    }
+
+    private void apply(JsonObject rec, List<Project> projects, Map<String, Project> byId) {
+        String op = rec.get("op").getAsString();
+        String projectId = rec.get("projectId").getAsString();
+        Project p = byId.get(projectId);
+
+        switch (op) {
+            case PROJECT_ADDED:
+                if (p == null) {
+                    Project added = gson.fromJson(rec.get("project"), Project.class);
+                    added.updateProgress();
+                    projects.add(added);
+                    byId.put(projectId, added);
+                }
+                break;
+            case PROJECT_UPDATED:
+                if (p != null) {
+                    p.setName(string(rec, "name"));
+                    p.setDescription(string(rec, "description"));
+                    p.setDeadline(string(rec, "deadline"));
+                    p.setClientId(string(rec, "clientId"));
+                    p.setManagerId(string(rec, "managerId"));
+                }
+                break;
+            case PROJECT_DELETED:
+                if (p != null) {
+                    projects.remove(p);
+                    byId.remove(projectId);
+                }
+                break;
+            case TASK_ADDED:
+                if (p != null) p.addTask(gson.fromJson(rec.get("task"), Task.class));
+                break;
+            case TASK_UPDATED:
+                if (p != null) {
+                    String taskId = rec.get("taskId").getAsString();
+                    for (Task t : p.getTasks()) {
+                        if (t.getId().equals(taskId)) {
+                            t.setProgress(rec.get("progress").getAsDouble());
+                            t.setCompleted(rec.get("completed").getAsBoolean());
+                            break;
+                        }
+                    }
+                }
+                break;
+            default:
+                System.err.println("Unknown journal record: " + op);
+        }
+    }
+
+    private static String string(JsonObject rec, String key) {
+        return rec.has(key) && !rec.get(key).isJsonNull() ? rec.get(key).getAsString() : null;
+    }
+}
@@ -1,90 +1,689 @@
 package repository;
 
 import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
 import models.Project;
 import models.Task;
+import utils.AppConfig;
 import utils.JSONFileHandler;
+import utils.Metrics;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class ProjectRepository {
 
-    private static final Path PATH = Path.of("data/projects.json");
+    private static final Path PATH = Path.of(AppConfig.dataDir(), "projects.json");
+    private static final Path BINARY_PATH = Path.of(AppConfig.dataDir(), "projects.bin");
+
+    // Per-project files under data/projects/ (only used in sharded layout)
+    private static final ProjectShardStore shards = new ProjectShardStore(Path.of(AppConfig.dataDir(), "projects"));
+    // projects.json, also read when the configured store has nothing saved yet
+    private static final JsonProjectStore json = new JsonProjectStore(PATH);
+    // projects.bin, also read when it is newer than the projects.json of the json format
+    private static final BinaryProjectStore binary = new BinaryProjectStore(BINARY_PATH);
+    private static final ProjectStore store = openStore();
+    // Projects removed since the last save, for stores that delete them one by one
+    private static final Set<String> deletedIds = new HashSet<>();
+    private static boolean membershipChanged = false;
     private static final List<Project> projects = new ArrayList<>();
+
+    // Guards the project list, the shard bookkeeping and the journal: mutations and saves
+    // take the write lock, whole-list scans the read lock. Lookups by id, manager or client
+    // go through the concurrent indexes and getAll() through the published snapshot, so
+    // readers never wait for a save.
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Read-only copy of the project list handed out by getAll(); replaced on every add/remove
+    private static volatile List<Project> snapshot = Collections.emptyList();
+
+    /** Content hash of a project as stored on disk, and the project's version at that point */
+    private static class DiskState {
+        static final long UNKNOWN = 0;  // hash of a header-only project: content not read yet
+        static final long CONFLICT = 0; // version no project has, so the local copy stays "changed"
+
+        final long hash;
+        final long version;
+
+        DiskState(long hash, long version) {
+            this.hash = hash;
+            this.version = version;
+        }
+    }
+
+    // What this instance last read from or wrote to disk, per project id (only with a shared data dir)
+    private static final Map<String, DiskState> onDisk = new HashMap<>();
+    // Shards the data dir watcher saw changing, not merged yet
+    private static final Set<String> changedShards = new HashSet<>();
+    private static boolean rescanShards = false;
+
+    private static final List<Consumer<ProjectChange>> changeListeners = new CopyOnWriteArrayList<>();
+
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
+    // Projects whose task lists are in memory (only used in lazy mode)
+    private static final Set<Project> resident = new LinkedHashSet<>();
+
+    // id / manager / client / task-owner lookups; kept in step with the projects list
+    private static final ProjectIndex index = new ProjectIndex();
+
+    // Trigram postings over names, descriptions and task descriptions for substring search
+    private static final ProjectSearchIndex searchIndex = new ProjectSearchIndex();
+
+    // Mutation log replayed on top of projects.json (only used in journal mode)
+    private static final ProjectJournal journal = new ProjectJournal(Path.of(AppConfig.dataDir(), "projects.journal"));
+
+    // Coalesces saveAll() calls onto a background thread (only used in write-behind mode)
+    private static final WriteBehindWriter writer = AppConfig.writeBehindEnabled()
+            ? new WriteBehindWriter("projects", AppConfig.writeBehindIntervalMs(), ProjectRepository::writeSnapshot)
+            : null;
+
+    // Set when a journal append failed: those changes are only in memory until the next snapshot
+    private static volatile boolean journalBehind = false;
+
+    // Durability of the last snapshot write; failures show up in flush()
+    private static CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    private static final Metrics.Timer loadTimer = Metrics.timer("ProjectRepository.loadAll");
+    private static final Metrics.Timer saveTimer = Metrics.timer("ProjectRepository.saveAll");
+    private static final Metrics.Timer writeTimer = Metrics.timer("ProjectRepository.write");
+
     // 🔧 FIX: ensure projects are loaded only once
-    private static boolean loaded = false;
+    private static volatile boolean loaded = false;
 
-    /** Load all projects from JSON file */
+    /** The store selected by smartpm.storage.backend, .layout and .format */
+    private static ProjectStore openStore() {
+        if (AppConfig.kvStorage()) return new KvProjectStore(Path.of(AppConfig.dataDir(), "store", "projects.kv"));
+        if (AppConfig.shardedStorage()) return shards;
+        if (AppConfig.binarySnapshots()) return binary;
+        return json;
+    }
+
+    /** Load all projects from the configured store plus any journal */
     public static void loadAll() {
         if (loaded) return; // 🔧 FIX
 
+        lock.writeLock().lock();
         try {
-            String json = JSONFileHandler.read(PATH.toString());
+            if (loaded) return; // another thread finished loading while this one waited
+            long start = loadTimer.start();
+            SharedDataDir.lock(); // no other instance writes while this one reads
+            try {
+                readAll();
+            } finally {
+                SharedDataDir.unlock();
+            }
+            loaded = true; // 🔧 FIX
+            loadTimer.stop(start);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Outside the lock: WorkloadIndex calls back into getAll() while holding its own
+        WorkloadIndex.invalidate();
+    }
+
+    /** Read the stored projects into the list and rebuild the indexes; caller holds both locks */
+    private static void readAll() throws IOException {
+        projects.clear();
 
-            if (json == null || json.trim().isEmpty()) {
-                JSONFileHandler.write(PATH.toString(), "[]");
-                projects.clear();
+        // projects.json is still read while the configured store is empty, e.g. after
+        // switching backend, layout or format; loaded projects stay dirty so the next
+        // save converts them
+        if (AppConfig.lazyTasks() && shards.exists()) {
+            // Tasks are read from the shards on first access
+            boolean stale = shards.loadHeaders(ProjectRepository::addHeader, ProjectRepository::addLoaded);
+            for (Project p : projects) p.markClean();
+            if (stale) shards.writeHeaders(projects);
+        } else {
+            ProjectStore source = sourceStore();
+            if (source != store && store.exists()) {
+                System.out.println((source == binary ? BINARY_PATH : PATH).getFileName()
+                        + " is newer than the configured snapshot; reading it, the next save converts it");
+            }
+            source.load(ProjectRepository::addLoaded);
+            if (source == store && store != json) {
+                for (Project p : projects) p.markClean();
             } else {
-                Type listType = new TypeToken<List<Project>>() {}.getType();
-                List<Project> loadedProjects = gson.fromJson(json, listType);
-
-                projects.clear();
-                if (loadedProjects != null) {
-                    for (Project p : loadedProjects) {
-                        if (p.getTasks() == null) p.setTasks(new ArrayList<>());
-                        p.updateProgress();
-                        projects.add(p);
-                    }
-                }
+                membershipChanged = true;
             }
+        }
 
-            loaded = true; // 🔧 FIX
+        if (AppConfig.journalEnabled()) {
+            int replayed = journal.replay(projects);
+            if (replayed > 0) System.out.println("Replayed " + replayed + " journal records");
+            maybeCompact();
+        }
 
-        } catch (Exception e) {
+        index.rebuild(projects);
+        searchIndex.rebuild(projects);
+        if (AppConfig.lazyTasks()) {
+            resident.clear();
+            for (Project p : projects) {
+                if (p.isTasksLoaded()) resident.add(p);
+            }
+            releaseIdleTasks(null);
+        }
+        publish();
+        if (SharedDataDir.enabled()) recordLoaded();
+    }
+
+    /**
+     * The store loadAll() reads: the configured one once it holds something, else
+     * projects.json. Of the two single-file formats the newer file is read, since
+     * after switching format back and forth the other one holds the latest saves.
+     */
+    private static ProjectStore sourceStore() throws IOException {
+        if (store != json && store != binary) return store.exists() ? store : json;
+        if (!binary.exists()) return json;
+        if (!json.exists()) return binary;
+
+        int newer = Files.getLastModifiedTime(BINARY_PATH).compareTo(Files.getLastModifiedTime(PATH));
+        if (newer == 0) return store;
+        return newer > 0 ? binary : json;
+    }
+
+    /** Remember what was just read as the state on disk */
+    private static void recordLoaded() {
+        onDisk.clear();
+        for (Project p : projects) {
+            if (p.isTasksLoaded()) record(p, onDisk);
+            else onDisk.put(p.getId(), new DiskState(DiskState.UNKNOWN, p.getVersion()));
+        }
+        SharedDataDir.stamp(snapshotFile());
+    }
+
+    /** Note the project's current content and version as its state on disk */
+    private static void record(Project p, Map<String, DiskState> states) {
+        states.put(p.getId(), new DiskState(contentHash(p), p.getVersion()));
+    }
+
+    /** Hash of a project's stored fields; progress is left out since it is derived from the tasks */
+    private static long contentHash(Project p) {
+        JsonObject tree = gson.toJsonTree(p).getAsJsonObject();
+        tree.remove("progress");
+        return SharedDataDir.hash(tree.toString());
+    }
+
+    /** The file that changes whenever an instance saves projects */
+    private static Path snapshotFile() {
+        if (AppConfig.shardedStorage()) return shards.manifestPath();
+        return AppConfig.binarySnapshots() ? BINARY_PATH : PATH;
+    }
+
+    /** Approximate number of bytes loadAll() reads, for progress reporting */
+    static long bytesToLoad() {
+        long total = AppConfig.journalEnabled() ? JSONFileHandler.sizeOf(journal.path()) : 0;
+        try {
+            if (AppConfig.lazyTasks() && shards.exists()) {
+                return total + shards.bytesToLoad(true);
+            }
+            return total + sourceStore().bytesToLoad();
+        } catch (IOException e) {
             e.printStackTrace();
         }
+        return total + json.bytesToLoad();
+    }
+
+    private static void addLoaded(Project p) {
+        normalize(p);
+        projects.add(p);
+    }
+
+    /** Fill in what the stored form leaves out: an empty task list, task parents and progress */
+    private static void normalize(Project p) {
+        if (p.getTasks() == null) p.setTasks(new ArrayList<>());
+        p.updateProgress();
+    }
+
+    private static void addHeader(Project p) {
+        ProjectHeader h = shards.header(p.getId());
+        p.setTaskLoader(ProjectRepository::loadTasks, h.taskCount, h.completedCount);
+        projects.add(p);
+    }
+
+    /** Task loader of header-only projects: read the project's shard and register its tasks */
+    private static void loadTasks(Project p) {
+        lock.writeLock().lock();
+        try {
+            if (p.isTasksLoaded()) return;
+            try {
+                p.attachTasks(shards.loadTasks(p.getId()));
+            } catch (IOException e) {
+                // Must not fall back to an empty list: a later save would write it over the shard
+                throw new UncheckedIOException(e);
+            }
+            for (Task t : p.getTasks()) index.addTask(p, t);
+            searchIndex.update(p); // task descriptions become searchable
+            resident.add(p);
+            releaseIdleTasks(p);
+            // Unless the header was edited meanwhile, the project now matches its shard
+            if (SharedDataDir.enabled() && !p.isDirty()) record(p, onDisk);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        WorkloadIndex.tasksLoaded(p);
     }
 
-    /** Save all projects to JSON file */
+    /**
+     * Release the least recently used task lists until at most taskCacheSize()
+     * remain. Dirty projects are skipped so unsaved tasks are never dropped.
+     * Caller holds the write lock.
+     */
+    private static void releaseIdleTasks(Project keep) {
+        int limit = AppConfig.taskCacheSize();
+        while (resident.size() > limit) {
+            Project victim = null;
+            for (Project r : resident) {
+                if (r == keep || r.isDirty()) continue;
+                if (victim == null || r.getTasksLastAccess() < victim.getTasksLastAccess()) victim = r;
+            }
+            if (victim == null) return;
+            resident.remove(victim);
+            victim.releaseTasks(ProjectRepository::loadTasks);
+        }
+    }
+
+    /** Stored header of a project, or null outside lazy mode */
+    static ProjectHeader header(String projectId) {
+        return AppConfig.lazyTasks() ? shards.header(projectId) : null;
+    }
+
+    /** Discard in-memory state and read projects from disk again */
+    public static void reload() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Not under the lock: loadAll() ends with WorkloadIndex.invalidate(), and the
+        // index calls getAll() while holding its monitor
+        loadAll();
+    }
+
+    /**
+     * Save all projects to the configured store (in write-behind mode this only
+     * schedules the write). Throws UncheckedIOException if the write fails; the
+     * changes stay in memory and the next save writes them again.
+     */
     public static void saveAll() {
+        long start = saveTimer.start();
         try {
-            java.nio.file.Files.createDirectories(PATH.getParent());
+            if (writer != null) {
+                writer.markDirty();
+            } else {
+                writeSnapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            saveTimer.stop(start);
+        }
+    }
 
-            // Ensure progress is up-to-date before saving
-            for (Project p : projects) {
-                p.updateProgress();
+    /** Write every pending change now; the future completes once it is on disk, or exceptionally if a write failed */
+    public static CompletableFuture<Void> flush() {
+        CompletableFuture<Void> pending;
+        if (writer != null) {
+            pending = writer.flush();
+        } else {
+            lock.readLock().lock();
+            try {
+                pending = lastWrite;
+            } finally {
+                lock.readLock().unlock();
             }
+            if (pending.isCompletedExceptionally() || journalBehind) {
+                // The last save or journal append failed, so its changes are only in memory: write them again
+                try {
+                    pending = writeSnapshot();
+                } catch (IOException | RuntimeException e) {
+                    pending = CompletableFuture.failedFuture(e);
+                }
+            }
+        }
+        return pending.thenCompose(v -> JSONFileHandler.sync());
+    }
+
+    /** Block until every change made so far has been written; throws CompletionException if a write failed */
+    public static void awaitDurable() {
+        flush().join();
+    }
+
+    /** Finish queued async calls, flush pending writes and stop the background threads; call on application exit */
+    public static void shutdown() {
+        IoExecutor.shutdown();
+        if (writer != null) writer.shutdown();
+        else awaitDurable();
+    }
+
+    /**
+     * Serialize all projects to the snapshot file (in journal mode this is also
+     * the compaction step). Returns the future of the write becoming durable.
+     */
+    private static CompletableFuture<Void> writeSnapshot() throws IOException {
+        List<ProjectChange> merged = Collections.emptyList();
+        // Held across write + truncate so no journal record can slip in between
+        lock.writeLock().lock();
+        long start = writeTimer.start();
+        try {
+            // With a shared data dir, take over what other instances saved before overwriting it
+            SharedDataDir.lock();
+            try {
+                if (SharedDataDir.enabled()) merged = mergeExternalChanges();
+                lastWrite = writeFiles();
+            } catch (IOException | RuntimeException e) {
+                lastWrite = CompletableFuture.failedFuture(e);
+                throw e;
+            } finally {
+                SharedDataDir.unlock();
+            }
+            return lastWrite;
+        } finally {
+            writeTimer.stop(start);
+            lock.writeLock().unlock();
+            // Changes merged from other instances are applied even if the write failed
+            if (!merged.isEmpty()) {
+                WorkloadIndex.invalidate();
+                fire(merged);
+            }
+        }
+    }
+
+    /** Wait for a write to become durable, reporting its failure as the IOException it was */
+    private static void await(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static CompletableFuture<Void> writeFiles() throws IOException {
+        Files.createDirectories(PATH.getParent());
+        boolean shared = SharedDataDir.enabled();
+        // Content and version of what is written, taken before the projects are marked clean
+        Map<String, DiskState> writing = new HashMap<>();
+
+        if (shared) {
+            if (AppConfig.shardedStorage()) {
+                for (Project p : projects) {
+                    if (p.isDirty()) {
+                        p.getTasks(); // the shard holds the whole project
+                        record(p, writing);
+                    }
+                }
+            } else {
+                onDisk.clear();
+                for (Project p : projects) record(p, writing);
+            }
+        }
+
+        // Stores that write single projects only rewrite the dirty ones
+        CompletableFuture<Void> written = store.save(projects, deletedIds, membershipChanged);
+        onDisk.keySet().removeAll(deletedIds);
+        deletedIds.clear();
+        membershipChanged = false;
+        if (AppConfig.lazyTasks()) {
+            // Headers record the written shards, so they follow once those are on disk
+            await(written);
+            written = shards.saveHeaders();
+            releaseIdleTasks(null);
+        }
 
-            String out = gson.toJson(projects);
-            JSONFileHandler.write(PATH.toString(), out);
+        // Snapshot now contains every journaled change, but only drop them once it is on disk
+        if (AppConfig.journalEnabled()) {
+            await(written);
+            journal.truncate();
+            journalBehind = false; // the snapshot holds what the journal missed
+        }
+
+        if (shared) {
+            // The stamp must describe the renamed file, and other instances wait for the lock
+            await(written);
+            onDisk.putAll(writing);
+            SharedDataDir.stamp(snapshotFile());
+        }
+        return written;
+    }
 
+    /**
+     * Take over projects other instances saved since this one last read or wrote
+     * the data dir, and drop those they deleted. A project changed here too since
+     * then keeps the local version, which the next save writes over theirs.
+     * Caller holds the write lock and the data dir lock. Returns the changes
+     * made, for the listeners.
+     */
+    private static List<ProjectChange> mergeExternalChanges() throws IOException {
+        List<ProjectChange> changed = new ArrayList<>();
+        Path file = snapshotFile();
+        Map<String, Project> byId = new HashMap<>();
+        for (Project p : projects) byId.put(p.getId(), p);
+
+        if (AppConfig.shardedStorage()) {
+            Set<String> ids = new HashSet<>(changedShards);
+            changedShards.clear();
+            List<String> stored = null;
+            if (rescanShards || SharedDataDir.changedSinceStamp(file)) {
+                stored = Files.exists(file) ? shards.readManifest() : null;
+                if (stored != null) {
+                    for (String id : stored) {
+                        if (rescanShards || !byId.containsKey(id)) ids.add(id);
+                    }
+                }
+            }
+            rescanShards = false;
+            for (String id : ids) {
+                Project remote = shards.read(id);
+                if (remote != null) mergeStored(remote, byId.get(id), changed);
+            }
+            if (stored != null) {
+                Set<String> kept = new HashSet<>(stored);
+                for (Project p : new ArrayList<>(projects)) {
+                    if (!kept.contains(p.getId())) mergeDeleted(p, changed);
+                }
+            }
+        } else {
+            if (!SharedDataDir.changedSinceStamp(file) || !Files.exists(file)) return changed;
+            Set<String> kept = new HashSet<>();
+            Consumer<Project> merge = remote -> {
+                kept.add(remote.getId());
+                mergeStored(remote, byId.get(remote.getId()), changed);
+            };
+            store.load(merge);
+            for (Project p : new ArrayList<>(projects)) {
+                if (!kept.contains(p.getId())) mergeDeleted(p, changed);
+            }
+        }
+        SharedDataDir.stamp(file);
+
+        if (!changed.isEmpty()) {
+            publish();
+            if (AppConfig.lazyTasks()) releaseIdleTasks(null);
+        }
+        return changed;
+    }
+
+    /** Merge one project as another instance stored it */
+    private static void mergeStored(Project remote, Project local, List<ProjectChange> changed) {
+        normalize(remote);
+        long hash = contentHash(remote);
+        DiskState known = onDisk.get(remote.getId());
+        if (known != null && known.hash == hash) return; // what this instance last saw
+
+        if (local == null) {
+            // Deleted here and not saved yet: the next save deletes it there too
+            if (known != null) return;
+            remote.markClean();
+            projects.add(remote);
+            index.add(remote);
+            searchIndex.add(remote);
+            if (AppConfig.lazyTasks()) resident.add(remote);
+            onDisk.put(remote.getId(), new DiskState(hash, remote.getVersion()));
+            changed.add(new ProjectChange(ProjectChange.Type.PROJECT_ADDED, remote, null, true));
+            return;
+        }
+
+        if (known == null || local.getVersion() != known.version) {
+            // Changed on both sides: keep the local copy, which the next save writes
+            System.err.println("Project " + local.getId() + " was changed by another instance too; keeping this instance's changes");
+            local.markDirty();
+            onDisk.put(local.getId(), new DiskState(hash, DiskState.CONFLICT));
+            return;
+        }
+
+        index.removeTasks(local);
+        local.replaceWith(remote);
+        for (Task t : local.getTasks()) index.addTask(local, t);
+        index.update(local);
+        searchIndex.update(local);
+        if (AppConfig.lazyTasks()) {
+            resident.add(local);
+            try {
+                shards.headerChanged(local);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        onDisk.put(local.getId(), new DiskState(hash, local.getVersion()));
+        changed.add(new ProjectChange(ProjectChange.Type.PROJECT_UPDATED, local, null, true));
+    }
+
+    /** Another instance deleted the project; drop it unless it was changed here since */
+    private static void mergeDeleted(Project p, List<ProjectChange> changed) {
+        DiskState known = onDisk.get(p.getId());
+        if (known == null) return; // added here and not saved yet
+
+        onDisk.remove(p.getId());
+        if (p.getVersion() != known.version) {
+            // Keep it: the next save writes it back
+            p.markDirty();
+            membershipChanged = true;
+            return;
+        }
+        projects.remove(p);
+        index.remove(p);
+        searchIndex.remove(p);
+        resident.remove(p);
+        changed.add(new ProjectChange(ProjectChange.Type.PROJECT_REMOVED, p, null, true));
+    }
+
+    /**
+     * Called by the data dir watcher when files changed that this instance did
+     * not write: merge what another instance saved and tell the listeners.
+     */
+    static void externalChange(Set<Path> files, boolean overflow) {
+        if (!loaded) return; // loadAll() reads everything anyway
+        List<ProjectChange> merged = Collections.emptyList();
+        lock.writeLock().lock();
+        try {
+            for (Path f : files) {
+                if (!SharedDataDir.isShard(f) || !SharedDataDir.changedSinceStamp(f)) continue;
+                String name = f.getFileName().toString();
+                changedShards.add(name.substring(0, name.length() - ".json".length()));
+            }
+            if (overflow) rescanShards = true;
+
+            SharedDataDir.lock();
+            try {
+                merged = mergeExternalChanges();
+            } finally {
+                SharedDataDir.unlock();
+            }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!merged.isEmpty()) {
+            WorkloadIndex.invalidate();
+            fire(merged);
+        }
+    }
+
+    /**
+     * Be told about every project and task change made through this repository,
+     * and about projects another app instance saved (shared data dir only).
+     * Listeners run on the thread that made the change, after the repository
+     * lock is released, so UI code has to hand them over to its own thread.
+     */
+    public static void addChangeListener(Consumer<ProjectChange> listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeChangeListener(Consumer<ProjectChange> listener) {
+        changeListeners.remove(listener);
+    }
+
+    private static void fire(ProjectChange.Type type, Project p, Task t) {
+        if (!changeListeners.isEmpty()) fire(List.of(new ProjectChange(type, p, t, false)));
+    }
+
+    private static void fire(List<ProjectChange> changes) {
+        for (ProjectChange c : changes) {
+            for (Consumer<ProjectChange> l : changeListeners) {
+                try {
+                    l.accept(c);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
-    /** Get all projects */
+    /**
+     * Read-only snapshot of all projects. It is not affected by later additions
+     * or removals (call again to see them), so it can be iterated on any thread.
+     */
     public static List<Project> getAll() {
         loadAll();
-        return projects; // 🔧 FIX: return shared state, not a copy
+        return snapshot;
+    }
+
+    /** Make the current project list visible to getAll(); caller holds the write lock */
+    private static void publish() {
+        snapshot = Collections.unmodifiableList(new ArrayList<>(projects));
     }
 
     /** Get projects assigned to a specific manager */
     public static List<Project> getByManagerId(String managerId) {
         loadAll();
-        List<Project> managerProjects = new ArrayList<>();
+        if (managerId == null) return new ArrayList<>();
+        return index.byManager(managerId);
+    }
 
-        for (Project p : projects) {
-            if (managerId != null && managerId.equals(p.getManagerId())) {
-                managerProjects.add(p);
-            }
-        }
-        return managerProjects;
+    /** Get projects belonging to a specific client */
+    public static List<Project> getByClientId(String clientId) {
+        loadAll();
+        if (clientId == null) return new ArrayList<>();
+        return index.byClient(clientId);
+    }
+
+    /**
+     * Projects whose name, description or a task description contains the query
+     * (case-insensitive), best matches first and at most limit of them.
+     * In lazy mode, task descriptions are searchable once the tasks were loaded.
+     */
+    public static List<Project> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    /** Same as search(query, limit), counting only projects accepted by the filter */
+    public static List<Project> search(String query, int limit, Predicate<Project> filter) {
+        loadAll();
+        return searchIndex.search(query, limit, filter);
     }
 
     /** Add a new project */
@@ -92,33 +691,86 @@ public class ProjectRepository {
         if (project != null) {
             loadAll();
             project.updateProgress();
-            projects.add(project);
-            saveAll();
+            IOException journalError = null;
+            lock.writeLock().lock();
+            try {
+                projects.add(project);
+                index.add(project);
+                searchIndex.add(project);
+                if (AppConfig.lazyTasks()) {
+                    resident.add(project);
+                    releaseIdleTasks(project);
+                }
+                project.markDirty();
+                deletedIds.remove(project.getId());
+                membershipChanged = true;
+                publish();
+                if (AppConfig.journalEnabled()) journalError = journal(() -> journal.projectAdded(project));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Task t : project.getTasks()) WorkloadIndex.taskChanged(t);
+            fire(ProjectChange.Type.PROJECT_ADDED, project, null);
+            persist(journalError);
         }
     }
 
     /** Find project by ID */
     public static Project findById(String id) {
         loadAll();
-        for (Project p : projects) {
-            if (p.getId().equals(id)) return p;
-        }
-        return null;
+        return index.byId(id);
     }
 
     /** Delete project by ID */
     public static void delete(String id) {
         loadAll();
-        projects.removeIf(p -> p.getId().equals(id));
-        saveAll();
+        Project p;
+        boolean removed = false;
+        lock.writeLock().lock();
+        try {
+            p = index.byId(id);
+            if (p != null) {
+                index.remove(p);
+                searchIndex.remove(p);
+                removed = projects.remove(p);
+                if (removed) {
+                    shardRemoved(p);
+                    publish();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed) {
+            // Its shard may be deleted already, so the tasks must not be loaded here
+            WorkloadIndex.projectRemoved(p);
+            fire(ProjectChange.Type.PROJECT_REMOVED, p, null);
+            recordDeleted(id);
+        }
     }
 
     /** Remove a project */
     public static boolean remove(Project project) {
         loadAll();
         if (project != null) {
-            boolean removed = projects.remove(project);
-            if (removed) saveAll();
+            boolean removed;
+            lock.writeLock().lock();
+            try {
+                removed = projects.remove(project);
+                if (removed) {
+                    index.remove(project);
+                    searchIndex.remove(project);
+                    shardRemoved(project);
+                    publish();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (removed) {
+                WorkloadIndex.projectRemoved(project);
+                fire(ProjectChange.Type.PROJECT_REMOVED, project, null);
+                recordDeleted(project.getId());
+            }
             return removed;
         }
         return false;
@@ -129,19 +781,153 @@ public class ProjectRepository {
         return "prj-" + UUID.randomUUID().toString().substring(0, 8);
     }
 
-    /** Update project when a task's progress changes */
+    /** Add a task to a project and persist the change */
+    public static void addTask(Project project, Task task) {
+        if (project == null || task == null) return;
+
+        loadAll();
+        IOException journalError = null;
+        lock.writeLock().lock();
+        try {
+            project.addTask(task);
+            index.addTask(project, task);
+            searchIndex.addTask(project, task);
+            if (AppConfig.journalEnabled()) journalError = journal(() -> journal.taskAdded(project, task));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        WorkloadIndex.taskChanged(task);
+        fire(ProjectChange.Type.TASK_ADDED, project, task);
+        persist(journalError);
+    }
+
+    /** Persist a change to a project's own fields (name, deadline, manager, client...) */
+    public static void updateProject(Project project) {
+        if (project == null) return;
+
+        loadAll();
+        IOException journalError = null;
+        lock.writeLock().lock();
+        try {
+            index.update(project);
+            searchIndex.update(project);
+            if (AppConfig.journalEnabled()) journalError = journal(() -> journal.projectUpdated(project));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fire(ProjectChange.Type.PROJECT_UPDATED, project, null);
+        persist(journalError);
+    }
+
+    /** Persist a task's progress/completed change */
     public static void updateProjectForTask(Task task) {
         if (task == null) return;
 
         loadAll();
-        for (Project p : projects) {
-            for (Task t : p.getTasks()) {
-                if (t.getId().equals(task.getId())) {
-                    p.updateProgress();
-                    saveAll();
-                    return;
+        Project p = index.ownerOf(task.getId());
+        if (p == null) p = findOwnerByScan(task);
+        if (p == null) return;
+
+        if (AppConfig.lazyTasks()) {
+            // The task may come from a view kept while its list was released and reloaded
+            lock.writeLock().lock();
+            try {
+                p.reattach(task);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Progress is already current: the task updated its project when it changed
+        WorkloadIndex.taskChanged(task);
+        fire(ProjectChange.Type.TASK_CHANGED, p, task);
+        IOException journalError = null;
+        if (AppConfig.journalEnabled()) {
+            Project owner = p;
+            lock.writeLock().lock();
+            try {
+                journalError = journal(() -> journal.taskUpdated(owner, task));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        persist(journalError);
+    }
+
+    /** Fallback for tasks added to a project without going through addTask() */
+    private static Project findOwnerByScan(Task task) {
+        lock.readLock().lock();
+        try {
+            for (Project p : projects) {
+                if (!p.isTasksLoaded()) continue; // released lists stay in the owner index
+                for (Task t : p.getTasks()) {
+                    if (t.getId().equals(task.getId())) {
+                        index.addTask(p, t);
+                        return p;
+                    }
                 }
             }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return null;
+    }
+
+    // Caller holds the write lock
+    private static void shardRemoved(Project p) {
+        resident.remove(p);
+        deletedIds.add(p.getId());
+        membershipChanged = true;
+    }
+
+    private static void recordDeleted(String id) {
+        IOException journalError = null;
+        if (AppConfig.journalEnabled()) {
+            lock.writeLock().lock();
+            try {
+                journalError = journal(() -> journal.projectDeleted(id));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        persist(journalError);
+    }
+
+    /** A journal append, which reports a failure */
+    private interface JournalAppend {
+        void run() throws IOException;
+    }
+
+    /** Run a journal append; returns its failure, or null. Caller holds the write lock */
+    private static IOException journal(JournalAppend append) {
+        try {
+            append.run();
+            return null;
+        } catch (IOException e) {
+            journalBehind = true;
+            return e;
+        }
+    }
+
+    /**
+     * Persist a mutation that was just applied in memory: save, or in journal mode
+     * compact when due. A failed journal append is rethrown as UncheckedIOException;
+     * the change stays in memory and the next save or flush() snapshots it.
+     */
+    private static void persist(IOException journalError) {
+        if (!AppConfig.journalEnabled()) {
+            saveAll();
+        } else if (journalError != null) {
+            throw new UncheckedIOException(journalError);
+        } else {
+            maybeCompact();
+        }
+    }
+
+    /** Fold the journal into a fresh snapshot once it grows past the threshold, or once an append failed */
+    private static void maybeCompact() {
+        if (journalBehind || journal.size() >= AppConfig.journalCompactThreshold()) {
+            saveAll();
         }
     }
 }
@@ -0,0 +1,376 @@
+package repository;
+
+import models.Project;
+import models.Task;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * N-gram index over project names, descriptions and task descriptions for
+ * substring search. Names are indexed by 1-, 2- and 3-grams so short queries
+ * are answered from postings too; descriptions and task descriptions by
+ * trigrams only, so they are searched for queries of three or more characters.
+ *
+ * Every indexed version of a project is a document with an increasing id, so
+ * posting lists stay sorted by simply appending. Updating a project indexes it
+ * again under a new id and marks the old id dead; dead ids are skipped by
+ * queries. Once dead ids outnumber live documents the live ones are numbered
+ * again from 0 and the document list shrinks to them. Posting lists are moved
+ * to the new numbers (dropping dead ids) a few at a time alongside later
+ * changes, and any list a query or change touches first is moved right away.
+ * Adding a task only adds the grams of its description to the project's
+ * current document.
+ */
+class ProjectSearchIndex {
+
+    /** Lower-cased text of one indexed version of a project */
+    private static class Doc {
+        final Project project;
+        final String name;
+        final String description;
+        String tasks;
+
+        Doc(Project project, String name, String description, String tasks) {
+            this.project = project;
+            this.name = name;
+            this.description = description;
+            this.tasks = tasks;
+        }
+
+        String field(int field) {
+            return field == NAME ? name : field == DESCRIPTION ? description : tasks;
+        }
+    }
+
+    /** Growable sorted list of document ids */
+    private static class Postings {
+        int[] ids = new int[4];
+        int size;
+        int generation;     // numbering the ids are in
+
+        Postings(int generation) {
+            this.generation = generation;
+        }
+
+        void append(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        /** Add an id that may be older than the last one, keeping the list sorted */
+        void insert(int id) {
+            if (size == 0 || ids[size - 1] < id) {
+                append(id);
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return;
+            at = -at - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+    }
+
+    // Fields in rank order: a name match beats a description match beats a task match
+    private static final int NAME = 0, DESCRIPTION = 1, TASKS = 2;
+    private static final long FIELD_RANK = 1L << 20;
+
+    // Posting lists the compaction sweep moves to the new numbering per change to the index
+    private static final int COMPACT_STEP = 256;
+
+    private final List<Map<Long, Postings>> postings = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+    private List<Doc> docs = new ArrayList<>();                // index = document id, null once dead
+    private final Map<Project, Integer> docOf = new IdentityHashMap<>();
+    private int dead = 0;                                      // null slots in docs
+
+    // Current numbering, and while lists are still in the previous one, old id -> new id (-1 = dead)
+    private int generation = 0;
+    private int[] remap;
+
+    // Running compaction sweep: the keys of each field's lists when it started, and how far it got
+    private long[][] sweepKeys;
+    private int sweepField, sweepAt;
+
+    synchronized void rebuild(List<Project> projects) {
+        for (Map<Long, Postings> m : postings) m.clear();
+        docs = new ArrayList<>(projects.size());
+        docOf.clear();
+        dead = 0;
+        remap = null;
+        sweepKeys = null;
+        for (Project p : projects) add(p);
+    }
+
+    synchronized void add(Project p) {
+        if (docOf.containsKey(p)) {
+            update(p);
+            return;
+        }
+        int id = docs.size();
+        Doc doc = new Doc(p, lower(p.getName()), lower(p.getDescription()), taskText(p));
+        docs.add(doc);
+        docOf.put(p, id);
+        for (int n = 1; n <= 3; n++) index(NAME, id, doc.name, n);
+        index(DESCRIPTION, id, doc.description, 3);
+        index(TASKS, id, doc.tasks, 0, 3);
+        compactStep();
+    }
+
+    /** Make a task added to an indexed project searchable without re-indexing the rest of it */
+    synchronized void addTask(Project p, Task t) {
+        Integer id = docOf.get(p);
+        if (id == null || !p.isTasksLoaded()) {
+            update(p);
+            return;
+        }
+        // Project.addTask ignores a task whose id is taken; its text must not become searchable
+        if (p.getTasks().stream().noneMatch(x -> x == t)) return;
+        Doc doc = docs.get(id);
+        int from = doc.tasks.length();
+        doc.tasks = from == 0 ? lower(t.getDescription()) : doc.tasks + '\n' + lower(t.getDescription());
+        // Start two chars back so grams spanning the line break are indexed too
+        index(TASKS, id, doc.tasks, Math.max(0, from - 2), 3);
+        compactStep();
+    }
+
+    synchronized void remove(Project p) {
+        Integer id = docOf.remove(p);
+        if (id == null) return;
+        docs.set(id, null);
+        dead++;
+        if (sweepKeys == null && dead > 1024 && dead > docOf.size()) startCompaction();
+        compactStep();
+    }
+
+    /** Re-index a project after its name, description or tasks changed */
+    synchronized void update(Project p) {
+        remove(p);
+        add(p);
+    }
+
+    /**
+     * Projects containing the query, best matches first: name matches before
+     * description matches before task matches, each by earliest position.
+     * At most limit results are returned. Queries shorter than three
+     * characters only match names.
+     */
+    synchronized List<Project> search(String query, int limit, Predicate<Project> filter) {
+        String q = lower(query);
+        if (q.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        // Max-heap on key, so the worst of the best `limit` matches is on top
+        PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.comparingLong((long[] e) -> e[0]).reversed());
+        int lastField = q.length() < 3 ? NAME : TASKS;
+
+        for (int field = NAME; field <= lastField; field++) {
+            // Any match in this field ranks below every match already kept
+            if (top.size() == limit) break;
+
+            for (int id : candidates(field, q)) {
+                Doc doc = docs.get(id);
+                if (doc == null || matchedEarlier(doc, field, q)) continue;
+                int at = doc.field(field).indexOf(q);
+                if (at < 0 || (filter != null && !filter.test(doc.project))) continue;
+
+                // Lower is better; the id keeps equal scores in a stable order
+                long key = ((field * FIELD_RANK + Math.min(at, FIELD_RANK - 1)) << 32) | id;
+                if (top.size() < limit) {
+                    top.add(new long[]{key, id});
+                } else if (key < top.peek()[0]) {
+                    top.poll();
+                    top.add(new long[]{key, id});
+                }
+                // Ids ascend, so once every kept match starts the field no later one can beat them
+                if (top.size() == limit && top.peek()[0] >>> 32 == field * FIELD_RANK) break;
+            }
+        }
+
+        List<Project> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) results.add(docs.get((int) top.poll()[1]).project);
+        Collections.reverse(results);
+        return results;
+    }
+
+    // ----- Internals -----
+
+    private static boolean matchedEarlier(Doc doc, int field, String q) {
+        for (int f = NAME; f < field; f++) {
+            if (doc.field(f).contains(q)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ids of documents whose field contains every n-gram of q (a superset of the
+     * real matches; n is the query length up to 3)
+     */
+    private int[] candidates(int field, String q) {
+        int n = Math.min(3, q.length());
+        List<Postings> lists = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i + n <= q.length(); i++) {
+            long key = gram(q, i, n);
+            if (!seen.add(key)) continue;
+            Postings p = list(field, key);
+            if (p == null) return new int[0];
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+
+        Postings first = lists.get(0);
+        int[] result = Arrays.copyOf(first.ids, first.size);
+        int count = result.length;
+        for (int l = 1; l < lists.size() && count > 0; l++) {
+            count = intersect(result, count, lists.get(l));
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** Keep the first n ids of a that also occur in b; returns the new count */
+    private static int intersect(int[] a, int n, Postings b) {
+        if ((long) n * 16 < b.size) {
+            // Few ids against a long list: binary search beats walking all of b
+            int out = 0, from = 0;
+            for (int i = 0; i < n && from < b.size; i++) {
+                int at = Arrays.binarySearch(b.ids, from, b.size, a[i]);
+                if (at >= 0) {
+                    a[out++] = a[i];
+                    from = at + 1;
+                } else {
+                    from = -at - 1;
+                }
+            }
+            return out;
+        }
+
+        int i = 0, j = 0, out = 0;
+        while (i < n && j < b.size) {
+            if (a[i] < b.ids[j]) i++;
+            else if (a[i] > b.ids[j]) j++;
+            else {
+                a[out++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private void index(int field, int id, String text, int n) {
+        index(field, id, text, 0, n);
+    }
+
+    /** Index the n-grams of text starting at from or later; id may be older than ids already posted */
+    private void index(int field, int id, String text, int from, int n) {
+        for (int i = from; i + n <= text.length(); i++) {
+            long key = gram(text, i, n);
+            Postings p = list(field, key);
+            if (p == null) {
+                p = new Postings(generation);
+                postings.get(field).put(key, p);
+            }
+            p.insert(id);
+        }
+    }
+
+    /** The posting list of a gram in the current numbering, or null if there is none */
+    private Postings list(int field, long key) {
+        Map<Long, Postings> m = postings.get(field);
+        Postings p = m.get(key);
+        if (p == null || p.generation == generation) return p;
+
+        // Still in the previous numbering: map the ids over, which preserves their order
+        int out = 0;
+        for (int i = 0; i < p.size; i++) {
+            int to = remap[p.ids[i]];
+            if (to >= 0) p.ids[out++] = to;
+        }
+        if (out == 0) {
+            m.remove(key);
+            return null;
+        }
+        if (out < p.size / 4) p.ids = Arrays.copyOf(p.ids, Math.max(4, out * 2));
+        p.size = out;
+        p.generation = generation;
+        return p;
+    }
+
+    /**
+     * Number the live documents again from 0 and drop the dead slots. Costs one
+     * pass over the documents; the posting lists follow in compactStep, or when
+     * list() is first asked for them. Only started once the previous sweep is
+     * done, so every list is at most one numbering behind.
+     */
+    private void startCompaction() {
+        remap = new int[docs.size()];
+        List<Doc> live = new ArrayList<>(docOf.size());
+        for (int id = 0; id < docs.size(); id++) {
+            Doc d = docs.get(id);
+            if (d == null) {
+                remap[id] = -1;
+            } else {
+                remap[id] = live.size();
+                docOf.put(d.project, live.size());
+                live.add(d);
+            }
+        }
+        docs = live;
+        dead = 0;
+        generation++;
+
+        sweepKeys = new long[postings.size()][];
+        for (int f = 0; f < sweepKeys.length; f++) {
+            Set<Long> keys = postings.get(f).keySet();
+            long[] k = new long[keys.size()];
+            int i = 0;
+            for (long key : keys) k[i++] = key;
+            sweepKeys[f] = k;
+        }
+        sweepField = 0;
+        sweepAt = 0;
+    }
+
+    /** Move up to COMPACT_STEP posting lists of the running sweep to the current numbering */
+    private void compactStep() {
+        if (sweepKeys == null) return;
+        for (int done = 0; done < COMPACT_STEP; done++) {
+            while (sweepField < sweepKeys.length && sweepAt == sweepKeys[sweepField].length) {
+                sweepField++;
+                sweepAt = 0;
+            }
+            if (sweepField == sweepKeys.length) {
+                // Lists created since the start are in the new numbering already
+                sweepKeys = null;
+                remap = null;
+                return;
+            }
+            list(sweepField, sweepKeys[sweepField][sweepAt++]);
+        }
+    }
+
+    /** The n chars at i packed into a long, tagged with n so grams of different length never collide */
+    private static long gram(String s, int i, int n) {
+        long key = n;
+        for (int k = 0; k < n; k++) key = (key << 16) | s.charAt(i + k);
+        return key;
+    }
+
+    /** Task descriptions, one per line; empty for projects whose tasks are not loaded */
+    private static String taskText(Project p) {
+        if (!p.isTasksLoaded()) return "";
+        StringBuilder sb = new StringBuilder();
+        for (Task t : p.getTasks()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(lower(t.getDescription()));
+        }
+        return sb.toString();
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,423 @@
+package repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.reflect.TypeToken;
+import models.Project;
+import models.Task;
+import utils.AppConfig;
+import utils.JSONFileHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Sharded layout: every project lives in its own data/projects/&lt;id&gt;.json and
+ * manifest.json lists the project ids in display order. A save rewrites only
+ * the shards of dirty projects, plus the manifest when projects were added or
+ * removed, so its cost follows the size of the edit instead of the portfolio.
+ *
+ * With lazy task loading, headers.json additionally keeps a ProjectHeader per
+ * project so startup can skip the shards and read tasks only when needed.
+ * A save appends the headers of the shards it wrote to headers.log instead of
+ * rewriting headers.json, which is compacted once the log is as long as it.
+ */
+class ProjectShardStore implements ProjectStore {
+
+    private final Path dir;
+    private final Path manifest;
+    private final Path headersFile;
+    private final Path headersLog;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson logGson = new Gson();
+    private final boolean compress = AppConfig.compressedStorage();
+    private final boolean lazy = AppConfig.lazyTasks();
+
+    // headers.json is rewritten once the log holds this many records, or as many as there are headers
+    private static final int HEADERS_LOG_COMPACT_MIN = 1000;
+
+    // Last written header per project id; the source of counts for projects whose tasks are not loaded.
+    // Read without the repository lock (WorkloadIndex), hence concurrent
+    private final Map<String, ProjectHeader> headers = new ConcurrentHashMap<>();
+    // Projects whose shard was written since their header was last saved (lazy mode only)
+    private final Map<String, Project> rewritten = new LinkedHashMap<>();
+    // Projects removed since their header was last saved (lazy mode only)
+    private final Set<String> removedHeaders = new HashSet<>();
+    private FileChannel headersLogChannel;
+    private int headersLogRecords = 0;
+    // Set when a manifest write failed, so the next save writes it even without membership changes
+    private volatile boolean manifestStale = false;
+
+    ProjectShardStore(Path dir) {
+        this.dir = dir;
+        this.manifest = dir.resolve("manifest.json");
+        this.headersFile = dir.resolve("headers.json");
+        this.headersLog = dir.resolve("headers.log");
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(manifest);
+    }
+
+    /** Read every shard listed in the manifest; missing shards are reported and skipped */
+    @Override
+    public void load(Consumer<Project> consumer) throws IOException {
+        for (String id : readManifest()) {
+            Path shard = shardPath(id);
+            if (!Files.exists(shard)) {
+                System.err.println("Missing project shard: " + shard);
+                continue;
+            }
+            try (Reader r = JSONFileHandler.openReader(shard.toString())) {
+                Project p = gson.fromJson(r, Project.class);
+                if (p != null) consumer.accept(p);
+            }
+        }
+    }
+
+    /**
+     * Create header-only projects from headers.json and headers.log, falling back
+     * to reading the full shard when a header is missing or older than its shard.
+     * Returns true if any header was stale, i.e. headers.json should be rewritten.
+     */
+    boolean loadHeaders(Consumer<Project> headerOnly, Consumer<Project> full) throws IOException {
+        headers.clear();
+        if (Files.exists(headersFile)) {
+            try (Reader r = JSONFileHandler.openReader(headersFile.toString())) {
+                List<ProjectHeader> stored = gson.fromJson(r, new TypeToken<List<ProjectHeader>>() {}.getType());
+                if (stored != null) for (ProjectHeader h : stored) headers.put(h.id, h);
+            }
+        }
+        readHeadersLog();
+
+        boolean stale = false;
+        for (String id : readManifest()) {
+            Path shard = shardPath(id);
+            ProjectHeader h = headers.get(id);
+            if (h != null && h.matches(shard)) {
+                headerOnly.accept(h.toProject());
+                continue;
+            }
+
+            stale = true;
+            headers.remove(id);
+            if (!Files.exists(shard)) {
+                System.err.println("Missing project shard: " + shard);
+                continue;
+            }
+            try (Reader r = JSONFileHandler.openReader(shard.toString())) {
+                Project p = gson.fromJson(r, Project.class);
+                if (p != null) full.accept(p);
+            }
+        }
+        return stale;
+    }
+
+    @Override
+    public long bytesToLoad() throws IOException {
+        return bytesToLoad(false);
+    }
+
+    /** Bytes a load reads: the manifest plus either headers.json or every shard */
+    long bytesToLoad(boolean headersOnly) throws IOException {
+        long total = JSONFileHandler.sizeOf(manifest);
+        if (headersOnly) return total + JSONFileHandler.sizeOf(headersFile) + JSONFileHandler.sizeOf(headersLog);
+        for (String id : readManifest()) total += JSONFileHandler.sizeOf(shardPath(id));
+        return total;
+    }
+
+    /** Header last written for a project, or null */
+    ProjectHeader header(String id) {
+        return headers.get(id);
+    }
+
+    /** The whole project stored in a shard, or null if there is no such shard */
+    Project read(String id) throws IOException {
+        Path shard = shardPath(id);
+        if (!Files.exists(shard)) return null;
+        try (Reader r = JSONFileHandler.openReader(shard.toString())) {
+            return gson.fromJson(r, Project.class);
+        }
+    }
+
+    /** Replace a project's cached header after its shard was changed by someone else */
+    void headerChanged(Project p) throws IOException {
+        ProjectHeader h = ProjectHeader.of(p);
+        Path shard = shardPath(p.getId());
+        if (Files.exists(shard)) h.stamp(shard);
+        headers.put(h.id, h);
+        if (lazy) rewritten.put(h.id, p);
+    }
+
+    /** Read the task list of one project from its shard */
+    List<Task> loadTasks(String id) throws IOException {
+        Path shard = shardPath(id);
+        // openReader() would create the missing file, leaving "[]" where a shard belongs
+        if (!Files.exists(shard)) throw new NoSuchFileException(shard.toString());
+        try (Reader r = JSONFileHandler.openReader(shard.toString())) {
+            Project p = gson.fromJson(r, Project.class);
+            List<Task> tasks = new ArrayList<>();
+            if (p != null && p.isTasksLoaded()) tasks.addAll(p.getTasks());
+            return tasks;
+        }
+    }
+
+    /**
+     * Rewrite headers.json for the given projects, e.g. after stale headers were
+     * replaced at startup. Call only after their shards are on disk, since each
+     * header records the size and time of its shard.
+     */
+    CompletableFuture<Void> writeHeaders(Collection<Project> projects) throws IOException {
+        Map<String, ProjectHeader> current = new HashMap<>();
+        for (Project p : projects) {
+            ProjectHeader h = headers.get(p.getId());
+            // Any other project is unchanged since its header was taken
+            if (h == null || rewritten.containsKey(p.getId())) h = headerOf(p);
+            current.put(h.id, h);
+        }
+        // Replace entry by entry so concurrent readers never see a live project without a header
+        headers.putAll(current);
+        headers.keySet().retainAll(current.keySet());
+        rewritten.clear();
+        removedHeaders.clear();
+        return compactHeaders();
+    }
+
+    /**
+     * Save the headers of the shards written and of the projects removed since
+     * the last call by appending them to headers.log; nothing is written if there
+     * are none. Call only after those shards are on disk.
+     */
+    CompletableFuture<Void> saveHeaders() throws IOException {
+        if (rewritten.isEmpty() && removedHeaders.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        StringBuilder records = new StringBuilder();
+        Map<String, ProjectHeader> changed = new LinkedHashMap<>();
+        // Removals first: a project removed and added again keeps its new header
+        for (String id : removedHeaders) {
+            records.append(logGson.toJson(ProjectHeader.removed(id))).append('\n');
+        }
+        for (Project p : rewritten.values()) {
+            ProjectHeader h = headerOf(p);
+            changed.put(h.id, h);
+            records.append(logGson.toJson(h)).append('\n');
+        }
+        int count = removedHeaders.size() + changed.size();
+
+        if (!Files.exists(headersFile)
+                || headersLogRecords + count >= Math.max(HEADERS_LOG_COMPACT_MIN, headers.size())) {
+            applyHeaders(changed);
+            return compactHeaders();
+        }
+        appendHeadersLog(records.toString());
+        headersLogRecords += count;
+        applyHeaders(changed);
+        return JSONFileHandler.sync();
+    }
+
+    private ProjectHeader headerOf(Project p) throws IOException {
+        ProjectHeader h = ProjectHeader.of(p);
+        Path shard = shardPath(p.getId());
+        if (Files.exists(shard)) h.stamp(shard);
+        return h;
+    }
+
+    /** Make saved header changes visible and forget them as pending */
+    private void applyHeaders(Map<String, ProjectHeader> changed) {
+        for (String id : removedHeaders) headers.remove(id);
+        headers.putAll(changed);
+        rewritten.clear();
+        removedHeaders.clear();
+    }
+
+    /** Write every header to headers.json and, once that is durable, empty headers.log */
+    private CompletableFuture<Void> compactHeaders() throws IOException {
+        List<ProjectHeader> list = new ArrayList<>(headers.values());
+        CompletableFuture<Void> written = JSONFileHandler.write(headersFile.toString(), w -> {
+            JsonWriter out = new JsonWriter(w);
+            out.setIndent("  ");
+            out.beginArray();
+            for (ProjectHeader h : list) gson.toJson(h, ProjectHeader.class, out);
+            out.endArray();
+            out.flush();
+        }, compress);
+        // Replaying the log over the new file would be harmless, but it must not shrink before it
+        await(written);
+        if (headersLogChannel != null) {
+            headersLogChannel.truncate(0);
+        } else if (Files.exists(headersLog)) {
+            Files.write(headersLog, new byte[0]);
+        }
+        headersLogRecords = 0;
+        return written;
+    }
+
+    private void appendHeadersLog(String records) throws IOException {
+        if (headersLogChannel == null) {
+            headersLogChannel = FileChannel.open(headersLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+        long end = headersLogChannel.size();
+        try {
+            while (buf.hasRemaining()) headersLogChannel.write(buf);
+            JSONFileHandler.commitAppend(headersLogChannel);
+        } catch (IOException e) {
+            try {
+                headersLogChannel.truncate(end);
+            } catch (IOException ignored) {
+                // A torn record only ends the replay early; the shard stamps catch what it missed
+            }
+            throw e;
+        }
+    }
+
+    /** Apply headers.log on top of the headers read from headers.json */
+    private void readHeadersLog() throws IOException {
+        headersLogRecords = 0;
+        if (!Files.exists(headersLog)) return;
+        try (BufferedReader reader = new BufferedReader(JSONFileHandler.openReader(headersLog.toString()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                ProjectHeader h;
+                try {
+                    h = logGson.fromJson(line, ProjectHeader.class);
+                } catch (RuntimeException torn) {
+                    // Cut off by a crash mid-append; the shard stamps tell which headers are stale
+                    break;
+                }
+                if (h == null || h.id == null) continue;
+                if (h.isRemoved()) headers.remove(h.id);
+                else headers.put(h.id, h);
+                headersLogRecords++;
+            }
+        }
+    }
+
+    /**
+     * Write the shards of dirty projects, rewrite the manifest if membership
+     * changed and then delete the shards of removed projects. The future
+     * completes when all of it is durable; a project whose shard could not be
+     * written is marked dirty again.
+     */
+    @Override
+    public CompletableFuture<Void> save(List<Project> projects, Collection<String> deletedIds,
+                                        boolean membershipChanged) throws IOException {
+        Files.createDirectories(dir);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+
+        for (Project p : projects) {
+            if (!p.isDirty()) continue;
+            p.getTasks(); // a header-only project needs its tasks before it can be written
+            // Clear first: a change made while the shard is being written marks it dirty again
+            p.markClean();
+            if (lazy) rewritten.put(p.getId(), p);
+            CompletableFuture<Void> written;
+            try {
+                written = JSONFileHandler.write(shardPath(p.getId()).toString(), w -> {
+                    gson.toJson(p, Project.class, w);
+                }, compress);
+            } catch (IOException | RuntimeException e) {
+                p.markDirty();
+                throw e;
+            }
+            // A group commit fails after this returns; the next save has to write the shard again
+            writes.add(written.whenComplete((v, e) -> {
+                if (e != null) p.markDirty();
+            }));
+        }
+
+        if (membershipChanged || manifestStale || !deletedIds.isEmpty()) {
+            manifestStale = false;
+            CompletableFuture<Void> manifestWritten;
+            try {
+                manifestWritten = JSONFileHandler.write(manifest.toString(), w -> {
+                    JsonWriter out = new JsonWriter(w);
+                    out.setIndent("  ");
+                    out.beginArray();
+                    for (Project p : projects) out.value(p.getId());
+                    out.endArray();
+                    out.flush();
+                }, compress);
+            } catch (IOException | RuntimeException e) {
+                manifestStale = true;
+                throw e;
+            }
+            manifestWritten = manifestWritten.whenComplete((v, e) -> {
+                if (e != null) manifestStale = true;
+            });
+            writes.add(manifestWritten);
+
+            if (!deletedIds.isEmpty()) {
+                if (lazy) {
+                    removedHeaders.addAll(deletedIds);
+                    for (String id : deletedIds) rewritten.remove(id);
+                }
+                // A crash must not leave the old manifest listing shards that are gone
+                await(manifestWritten);
+                for (String id : deletedIds) {
+                    Files.deleteIfExists(shardPath(id));
+                }
+            }
+        }
+
+        return allOf(writes);
+    }
+
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /** Wait for a write to become durable, reporting its failure as the IOException it was */
+    private static void await(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    Path manifestPath() {
+        return manifest;
+    }
+
+    /** Project ids listed in the manifest */
+    List<String> readManifest() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(JSONFileHandler.openReader(manifest.toString()))) {
+            reader.beginArray();
+            while (reader.hasNext()) ids.add(reader.nextString());
+            reader.endArray();
+        }
+        return ids;
+    }
+
+    private Path shardPath(String id) {
+        return dir.resolve(id.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+    }
+}
@@ -0,0 +1,35 @@
+package repository;
+
+import models.Project;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Where ProjectRepository keeps its projects. The repository holds the
+ * projects and their indexes in memory; a store only reads and writes them.
+ * Selected with smartpm.storage.backend, .layout and .format (see AppConfig).
+ */
+interface ProjectStore {
+
+    /** True once something was saved here; until then the repository reads projects.json */
+    boolean exists();
+
+    /** Read every stored project, in display order */
+    void load(Consumer<Project> sink) throws IOException;
+
+    /**
+     * Persist the project list. Stores that can write single projects write only
+     * the dirty ones (marking them clean) and drop deletedIds; the others
+     * rewrite everything. membershipChanged tells whether projects were added or
+     * removed since the last save. The future completes once it is durable.
+     */
+    CompletableFuture<Void> save(List<Project> projects, Collection<String> deletedIds,
+                                 boolean membershipChanged) throws IOException;
+
+    /** Approximate number of bytes load() reads, for progress reporting */
+    long bytesToLoad() throws IOException;
+}
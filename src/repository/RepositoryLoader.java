@@ -0,0 +1,60 @@
+package repository;
+
+import utils.JSONFileHandler;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads users and projects on a background thread so the first screen can be
+ * shown at once. Progress is the share of the expected bytes read so far.
+ */
+public class RepositoryLoader {
+
+    private static CompletableFuture<Void> loading;
+    private static volatile long baseline;
+    private static volatile long expected = 0; // 0 until the loader has sized the files
+
+    /** Start loading (once); the future completes when both repositories are ready */
+    public static synchronized CompletableFuture<Void> loadAllAsync() {
+        if (loading != null) return loading;
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread t = new Thread(() -> {
+            try {
+                baseline = JSONFileHandler.bytesRead();
+                expected = Math.max(1, UserRepository.bytesToLoad() + ProjectRepository.bytesToLoad());
+
+                UserRepository.loadAll();
+                ProjectRepository.loadAll();
+                // Pick up saves of other instances sharing the data dir from now on
+                SharedDataDir.startWatching();
+                System.out.println("User & Project JSON loaded successfully!");
+                future.complete(null);
+            } catch (Throwable e) {
+                System.err.println("ERROR loading repositories!");
+                e.printStackTrace();
+                future.completeExceptionally(e);
+            }
+        }, "repository-loader");
+        t.setDaemon(true);
+        t.start();
+
+        loading = future;
+        return loading;
+    }
+
+    /** Fraction of the data loaded so far, from 0 to 1 */
+    public static double progress() {
+        CompletableFuture<Void> f;
+        synchronized (RepositoryLoader.class) {
+            f = loading;
+        }
+        if (f == null) return 0;
+        if (f.isDone()) return 1;
+
+        long total = expected;
+        if (total == 0) return 0;
+        // Capped below 1: indexes are still being built after the last byte is read
+        return Math.min(0.99, (double) (JSONFileHandler.bytesRead() - baseline) / total);
+    }
+}
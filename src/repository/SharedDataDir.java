@@ -0,0 +1,200 @@
+package repository;
+
+import utils.AppConfig;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Coordination with other app instances that use the same data directory
+ * (only active with AppConfig.sharedDataDir(), and not in journal mode or with
+ * the key-value backend, whose store files are held open by one instance).
+ *
+ * Writers hold an OS lock on <dataDir>/.lock while they merge changes made by
+ * other instances and write, so no instance overwrites a save it has not seen.
+ * A WatchService thread hands changed files to the repositories, which then
+ * reload only what another instance changed. Files this instance wrote itself
+ * are recognised by the size, modification time and file key recorded after
+ * writing them.
+ */
+class SharedDataDir {
+
+    private static final Path DIR = Path.of(AppConfig.dataDir()).toAbsolutePath().normalize();
+    private static final Path LOCK_FILE = DIR.resolve(".lock");
+    private static final Path SHARDS_DIR = DIR.resolve("projects");
+
+    // Writes arrive in bursts (temp file, rename, several shards); events are collected this long
+    private static final long DEBOUNCE_MS = 200;
+
+    // The OS lock is held per JVM, so threads of this instance queue here first
+    private static final ReentrantLock localLock = new ReentrantLock();
+    private static FileChannel lockChannel;
+    private static FileLock fileLock;
+
+    private static final Map<Path, String> stamps = new ConcurrentHashMap<>();
+    private static Thread watcher;
+
+    static boolean enabled() {
+        return AppConfig.sharedDataDir() && !AppConfig.journalEnabled() && !AppConfig.kvStorage();
+    }
+
+    /** Take the data directory lock; reentrant, and a no-op unless enabled */
+    static void lock() throws IOException {
+        if (!enabled()) return;
+        localLock.lock();
+        if (localLock.getHoldCount() > 1) return;
+        try {
+            Files.createDirectories(DIR);
+            lockChannel = FileChannel.open(LOCK_FILE, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            fileLock = lockChannel.lock();
+        } catch (IOException | RuntimeException e) {
+            closeLockChannel();
+            localLock.unlock();
+            throw e;
+        }
+    }
+
+    static void unlock() {
+        if (!enabled()) return;
+        if (localLock.getHoldCount() == 1) closeLockChannel();
+        localLock.unlock();
+    }
+
+    private static void closeLockChannel() {
+        try {
+            if (fileLock != null) fileLock.release();
+            if (lockChannel != null) lockChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            fileLock = null;
+            lockChannel = null;
+        }
+    }
+
+    /** Remember the file as this instance last read or wrote it */
+    static void stamp(Path file) {
+        stamps.put(key(file), stampOf(file));
+    }
+
+    /** True if the file was changed (or created, or deleted) since it was last stamped */
+    static boolean changedSinceStamp(Path file) {
+        return !stampOf(file).equals(stamps.get(key(file)));
+    }
+
+    static boolean isShard(Path file) {
+        Path name = file.getFileName();
+        return SHARDS_DIR.equals(key(file).getParent()) && name.toString().endsWith(".json")
+                && !name.toString().equals("manifest.json") && !name.toString().equals("headers.json");
+    }
+
+    /** 64-bit FNV-1a hash of a string, for comparing stored contents */
+    static long hash(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** Start watching the data directory for changes made by other instances (once) */
+    static synchronized void startWatching() {
+        if (AppConfig.sharedDataDir() && AppConfig.journalEnabled()) {
+            System.err.println("smartpm.shared is not supported together with smartpm.journal; not watching " + DIR);
+        }
+        if (AppConfig.sharedDataDir() && AppConfig.kvStorage()) {
+            System.err.println("smartpm.shared is not supported with smartpm.storage.backend=kv; not watching " + DIR);
+        }
+        if (!enabled() || watcher != null) return;
+        watcher = new Thread(SharedDataDir::watch, "data-dir-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static void watch() {
+        try (WatchService ws = DIR.getFileSystem().newWatchService()) {
+            Map<WatchKey, Path> dirs = new HashMap<>();
+            dirs.put(DIR.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), DIR);
+            if (Files.isDirectory(SHARDS_DIR)) {
+                dirs.put(SHARDS_DIR.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), SHARDS_DIR);
+            }
+
+            while (true) {
+                WatchKey key = ws.take();
+                Set<Path> changed = new HashSet<>();
+                boolean overflow = false;
+                long until = System.currentTimeMillis() + DEBOUNCE_MS;
+
+                while (key != null) {
+                    Path dir = dirs.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            overflow = true;
+                            continue;
+                        }
+                        Path file = dir.resolve((Path) event.context());
+                        String name = file.getFileName().toString();
+                        if (name.contains(".tmp-") || file.equals(LOCK_FILE)) continue;
+
+                        // The shard directory appears with the first sharded save
+                        if (file.equals(SHARDS_DIR) && !dirs.containsValue(SHARDS_DIR) && Files.isDirectory(SHARDS_DIR)) {
+                            dirs.put(SHARDS_DIR.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), SHARDS_DIR);
+                            overflow = true; // shards written before it was registered went unseen
+                        }
+                        changed.add(file);
+                    }
+                    if (!key.reset()) dirs.remove(key);
+
+                    long wait = until - System.currentTimeMillis();
+                    key = wait > 0 ? ws.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (!changed.isEmpty() || overflow) dispatch(changed, overflow);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.err.println("Stopped watching " + DIR + " for changes by other instances");
+            e.printStackTrace();
+        }
+    }
+
+    private static void dispatch(Set<Path> changed, boolean overflow) {
+        try {
+            UserRepository.externalChange();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        try {
+            ProjectRepository.externalChange(changed, overflow);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Path key(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    private static String stampOf(Path file) {
+        try {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+            return a.size() + ":" + a.lastModifiedTime() + ":" + a.fileKey();
+        } catch (IOException e) {
+            return "missing";
+        }
+    }
+}
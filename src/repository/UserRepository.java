@@ -1,106 +1,237 @@
 package repository;
 
-import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
 import models.*;
+import utils.AppConfig;
 import utils.JSONFileHandler;
+import utils.Metrics;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Users and their lookup indexes. Loads and additions are serialized on the
+ * class monitor; readers need no lock, since the list is copy-on-write and
+ * the indexes are concurrent maps that a reload replaces as a whole.
+ */
 public class UserRepository {
 
-    private static final Path PATH = Path.of("data/users.json");
-    private static final List<User> users = new ArrayList<>();
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final Path PATH = Path.of(AppConfig.dataDir(), "users.json");
+    // users.json, also read when the key-value store has nothing saved yet
+    private static final JsonUserStore json = new JsonUserStore(PATH);
+    private static final UserStore store = AppConfig.kvStorage()
+            ? new KvUserStore(Path.of(AppConfig.dataDir(), "store", "users.kv"))
+            : json;
+    private static volatile List<User> users = new CopyOnWriteArrayList<>();
+    private static final Metrics.Timer loadTimer = Metrics.timer("UserRepository.loadAll");
+
+    // Lookup indexes rebuilt on loadAll() and kept up to date by add()
+    private static volatile Map<String, User> byEmail = new ConcurrentHashMap<>();
+    private static volatile Map<String, User> byId = new ConcurrentHashMap<>();
+    private static volatile Map<String, List<User>> byRole = new ConcurrentHashMap<>();
 
     /**
-     * Loads all users from JSON file. Seeds default users if file is empty or missing.
+     * Loads all users from the configured store. Seeds default users if it is empty or missing.
      */
-    public static void loadAll() {
+    public static synchronized void loadAll() {
+        long start = loadTimer.start();
         try {
-            String json = JSONFileHandler.read(PATH.toString());
-
-            if (json == null || json.trim().isEmpty()) {
-                JSONFileHandler.write(PATH.toString(), "[]");
+            // Until the key-value store has been written, users.json is converted on the next save
+            boolean converting = store != json && !store.exists();
+            List<User> loaded = converting ? json.load() : store.load();
+            if (loaded == null) {
+                if (store == json) JSONFileHandler.write(PATH.toString(), "[]");
                 seed();
-                saveAll();
+                saveLoaded();
                 return;
             }
 
-            Type listType = new TypeToken<List<JsonObject>>() {}.getType();
-            List<JsonObject> arr = gson.fromJson(json, listType);
-
-            users.clear();
-            for (JsonObject jo : arr) {
-                String role = jo.get("role").getAsString();
-                switch (role) {
-                    case "ADMIN": users.add(gson.fromJson(jo, Admin.class)); break;
-                    case "MANAGER": users.add(gson.fromJson(jo, Manager.class)); break;
-                    case "MEMBER": users.add(gson.fromJson(jo, Member.class)); break;
-                    case "CLIENT": users.add(gson.fromJson(jo, Client.class)); break;
-                    default: users.add(gson.fromJson(jo, Member.class)); break;
-                }
-            }
+            // Read into a fresh list so readers keep the previous one until this is complete
+            users = new CopyOnWriteArrayList<>(loaded);
 
             if (users.isEmpty()) {
                 seed();
-                saveAll();
+                saveLoaded();
             }
+            rebuildIndexes();
+            if (converting) saveLoaded();
+            SharedDataDir.stamp(PATH);
 
         } catch (Exception e) {
             e.printStackTrace();
             seed();
-            saveAll();
+            saveLoaded();
+        } finally {
+            loadTimer.stop(start);
+        }
+    }
+
+    /**
+     * Add the users another app instance registered since this one last read or
+     * wrote the file (only with a shared data dir). Caller holds the class
+     * monitor and the data dir lock.
+     */
+    private static void mergeExternalUsers() throws IOException {
+        if (!SharedDataDir.changedSinceStamp(PATH)) return;
+        List<User> stored = json.load();
+        if (stored != null) {
+            for (User u : stored) {
+                if (u.getId() == null || byId.containsKey(u.getId())) continue;
+                if (u.getEmail() != null && byEmail.containsKey(normalize(u.getEmail()))) continue;
+                users.add(u);
+                index(u, byEmail, byId, byRole);
+                if (u instanceof Member) WorkloadIndex.memberAdded((Member) u);
+            }
+        }
+        SharedDataDir.stamp(PATH);
+    }
+
+    /** Called by the data dir watcher when files changed that this instance did not write */
+    static synchronized void externalChange() {
+        try {
+            SharedDataDir.lock();
+            try {
+                mergeExternalUsers();
+            } finally {
+                SharedDataDir.unlock();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
+    /** Number of bytes loadAll() reads, for progress reporting */
+    static long bytesToLoad() {
+        try {
+            if (store.exists()) return store.bytesToLoad();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return json.bytesToLoad();
+    }
+
     /** Seeds default users for the application. */
     private static void seed() {
-        users.clear();
-        users.add(new Admin("adm-1","Sana Admin","admin@smartpm.com","admin123"));
-        users.add(new Manager("mgr-1","Ayesha Manager","mgr@smartpm.com","mgr123"));
-        users.add(new Member("mem-1","Ali Dev","ali@smartpm.com","mem123"));
-        users.add(new Client("cli-1","Acme Corp","client@acme.com","client1"));
+        users = new CopyOnWriteArrayList<>(List.of(
+                new Admin("adm-1","Sana Admin","admin@smartpm.com","admin123"),
+                new Manager("mgr-1","Ayesha Manager","mgr@smartpm.com","mgr123"),
+                new Member("mem-1","Ali Dev","ali@smartpm.com","mem123"),
+                new Client("cli-1","Acme Corp","client@acme.com","client1")));
+        rebuildIndexes();
+    }
+
+    /** Build the indexes aside and then switch readers over to them */
+    private static void rebuildIndexes() {
+        WorkloadIndex.invalidate();
+        Map<String, User> email = new ConcurrentHashMap<>();
+        Map<String, User> id = new ConcurrentHashMap<>();
+        Map<String, List<User>> role = new ConcurrentHashMap<>();
+        for (User u : users) index(u, email, id, role);
+        byEmail = email;
+        byId = id;
+        byRole = role;
     }
 
-    /** Save all users to JSON */
-    public static void saveAll() {
+    private static void index(User u, Map<String, User> email, Map<String, User> id, Map<String, List<User>> role) {
+        if (u.getEmail() != null) email.putIfAbsent(normalize(u.getEmail()), u);
+        if (u.getId() != null) id.putIfAbsent(u.getId(), u);
+        role.computeIfAbsent(u.getRole(), r -> new CopyOnWriteArrayList<>()).add(u);
+    }
+
+    private static void unindex(User u) {
+        if (u.getEmail() != null) byEmail.remove(normalize(u.getEmail()), u);
+        if (u.getId() != null) byId.remove(u.getId(), u);
+        List<User> sameRole = byRole.get(u.getRole());
+        if (sameRole != null) sameRole.remove(u);
+    }
+
+    /** Emails are matched case-insensitively and without surrounding whitespace */
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Save all users to the configured store; throws UncheckedIOException if the write fails */
+    public static synchronized void saveAll() {
         try {
-            java.nio.file.Files.createDirectories(PATH.getParent());
-            List<JsonObject> arr = new ArrayList<>();
-            for (User u : users) {
-                JsonObject jo = (JsonObject) gson.toJsonTree(u);
-                jo.addProperty("role", u.getRole());
-                arr.add(jo);
-            }
-            String out = gson.toJson(arr);
-            JSONFileHandler.write(PATH.toString(), out);
-        } catch (Exception e) {
+            write(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Save during loadAll(); a failure is only reported, so the users just read or seeded stay in place */
+    private static void saveLoaded() {
+        try {
+            write(null);
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /** Write the users, or with a new user only that one if the store can; caller holds the class monitor */
+    private static void write(User added) throws IOException {
+        SharedDataDir.lock();
+        try {
+            // Keep users another instance registered since this one read the file
+            if (SharedDataDir.enabled()) mergeExternalUsers();
+            CompletableFuture<Void> written = added != null ? store.added(users, added) : store.save(users);
+            if (SharedDataDir.enabled()) {
+                // Other instances must see the file complete once they get the lock
+                try {
+                    written.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                    throw e;
+                }
+                SharedDataDir.stamp(PATH);
+            }
+        } finally {
+            SharedDataDir.unlock();
+        }
+    }
+
     /** Finds a user by email and password. Returns null if not found. */
     public static User findByEmailAndPassword(String email, String password) {
-        return users.stream()
-                    .filter(u -> u.getEmail().equalsIgnoreCase(email) && u.getPassword().equals(password))
-                    .findFirst()
-                    .orElse(null);
+        if (email == null) return null;
+        User u = byEmail.get(normalize(email));
+        return (u != null && u.getPassword().equals(password)) ? u : null;
     }
 
     /** Checks if a user exists by email. */
     public static boolean existsByEmail(String email) {
-        return users.stream().anyMatch(u -> u.getEmail().equalsIgnoreCase(email));
+        return email != null && byEmail.containsKey(normalize(email));
     }
 
-    /** Adds a new user and immediately saves all users. */
-    public static void add(User u) {
-        if (u != null) {
-            users.add(u);
-            saveAll();
+    /**
+     * Adds a new user and immediately saves it. Returns false, adding nothing,
+     * if a user with the same email exists; the check and the add happen under
+     * the class monitor, so of concurrent registrations of one email only the
+     * first succeeds. If the write fails the user is taken out again and
+     * UncheckedIOException is thrown.
+     */
+    public static synchronized boolean add(User u) {
+        if (u == null || existsByEmail(u.getEmail())) return false;
+        users.add(u);
+        index(u, byEmail, byId, byRole);
+        boolean written = false;
+        try {
+            write(u);
+            written = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!written) {
+                users.remove(u);
+                unindex(u);
+            }
         }
+        if (u instanceof Member) WorkloadIndex.memberAdded((Member) u);
+        return true;
     }
 
     /** Returns a read-only list of all users. */
@@ -118,21 +249,27 @@ public class UserRepository {
      */
     public static List<Member> getAllMembers() {
         List<Member> members = new ArrayList<>();
-        for (User u : users) {
-            if (u instanceof Member) members.add((Member) u);
+        for (User u : byRole.getOrDefault("MEMBER", Collections.emptyList())) {
+            members.add((Member) u);
         }
         return members;
     }
 
+    /** Returns all users with the given role (ADMIN, MANAGER, MEMBER, CLIENT). */
+    public static List<User> getByRole(String role) {
+        return Collections.unmodifiableList(byRole.getOrDefault(role, Collections.emptyList()));
+    }
+
     /**
      * Get a member by their ID.
      */
     public static Member getMemberById(String id) {
-        for (User u : users) {
-            if (u.getId().equals(id) && u instanceof Member) {
-                return (Member) u;
-            }
-        }
-        return null;
+        User u = id != null ? byId.get(id) : null;
+        return (u instanceof Member) ? (Member) u : null;
+    }
+
+    /** Get any user by their ID. */
+    public static User findById(String id) {
+        return id != null ? byId.get(id) : null;
     }
 }
\ No newline at end of file
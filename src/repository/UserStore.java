@@ -0,0 +1,31 @@
+package repository;
+
+import models.User;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where UserRepository keeps its users; selected with smartpm.storage.backend
+ * like the ProjectStore.
+ */
+interface UserStore {
+
+    /** True once something was saved here; until then the repository reads users.json */
+    boolean exists();
+
+    /** Every stored user, or null if there are none */
+    List<User> load() throws IOException;
+
+    /** Persist the user list; the future completes once it is durable */
+    CompletableFuture<Void> save(List<User> users) throws IOException;
+
+    /** Persist one new user; stores that cannot write single users save the whole list */
+    default CompletableFuture<Void> added(List<User> users, User user) throws IOException {
+        return save(users);
+    }
+
+    /** Approximate number of bytes load() reads, for progress reporting */
+    long bytesToLoad() throws IOException;
+}
@@ -0,0 +1,200 @@
+package repository;
+
+import models.Member;
+import models.Project;
+import models.Task;
+
+import java.util.*;
+
+/**
+ * Open-task count and remaining progress per member across all projects,
+ * ordered so the least busy members can be read off in O(log n).
+ * The index is built lazily on first query and then kept current by
+ * ProjectRepository / UserRepository as tasks and members change.
+ * Projects whose tasks are not loaded count with the totals in their header.
+ */
+public class WorkloadIndex {
+
+    /** Current load of one member; only mutated while out of the ordered set */
+    private static class Load {
+        final String memberId;
+        boolean member;         // registered Member (only those are ranked)
+        int openTasks;
+        double remaining;       // sum of (100 - progress) over open tasks
+
+        Load(String memberId) { this.memberId = memberId; }
+    }
+
+    /** What a task (or a header-only project) contributed, so changes can be diffed */
+    private static class Contribution {
+        final String memberId;
+        final int openTasks;
+        final double remaining;
+
+        Contribution(String memberId, int openTasks, double remaining) {
+            this.memberId = memberId;
+            this.openTasks = openTasks;
+            this.remaining = remaining;
+        }
+    }
+
+    private static final Comparator<Load> BUSY_ORDER = Comparator
+            .comparingInt((Load l) -> l.openTasks)
+            .thenComparingDouble(l -> l.remaining)
+            .thenComparing(l -> l.memberId);
+
+    private static final Map<String, Load> loads = new HashMap<>();
+    private static final TreeSet<Load> ranked = new TreeSet<>(BUSY_ORDER);
+    private static final Map<String, Contribution> contributions = new HashMap<>();
+    // Per-member totals taken from the header of projects whose tasks are not loaded, by project id
+    private static final Map<String, List<Contribution>> summaries = new HashMap<>();
+    private static boolean built = false;
+
+    // ----- Queries -----
+
+    /** Id of the member with the fewest open tasks (ties: least remaining work), or null */
+    public static synchronized String leastBusyMemberId() {
+        ensureBuilt();
+        return ranked.isEmpty() ? null : ranked.first().memberId;
+    }
+
+    /** Ids of the n least busy members, least busy first */
+    public static synchronized List<String> leastBusyMemberIds(int n) {
+        ensureBuilt();
+        List<String> ids = new ArrayList<>(Math.min(n, ranked.size()));
+        for (Load l : ranked) {
+            if (ids.size() >= n) break;
+            ids.add(l.memberId);
+        }
+        return ids;
+    }
+
+    public static synchronized int openTaskCount(String memberId) {
+        ensureBuilt();
+        Load l = loads.get(memberId);
+        return l != null ? l.openTasks : 0;
+    }
+
+    public static synchronized double remainingProgress(String memberId) {
+        ensureBuilt();
+        Load l = loads.get(memberId);
+        return l != null ? l.remaining : 0;
+    }
+
+    // ----- Maintenance hooks -----
+
+    /** Drop everything; the next query rebuilds from the repositories */
+    static synchronized void invalidate() {
+        built = false;
+        loads.clear();
+        ranked.clear();
+        contributions.clear();
+        summaries.clear();
+    }
+
+    static synchronized void memberAdded(Member m) {
+        if (!built || m == null) return;
+        Load l = load(m.getId());
+        if (!l.member) {
+            l.member = true;
+            ranked.add(l);
+        }
+    }
+
+    /** Record a new or changed task (assignment, progress or completion) */
+    static synchronized void taskChanged(Task t) {
+        if (!built || t == null) return;
+        withdraw(contributions.remove(t.getId()));
+        contribute(t);
+    }
+
+    /** Drop everything a removed project contributed; never loads its tasks */
+    static synchronized void projectRemoved(Project p) {
+        if (!built || p == null) return;
+        List<Contribution> summary = summaries.remove(p.getId());
+        if (summary != null) {
+            for (Contribution c : summary) withdraw(c);
+        }
+        List<Task> tasks = p.loadedTasks();
+        if (tasks != null) {
+            for (Task t : tasks) withdraw(contributions.remove(t.getId()));
+        }
+    }
+
+    /** Replace a header-only project's totals with its now loaded tasks */
+    static synchronized void tasksLoaded(Project p) {
+        if (!built || p == null) return;
+        List<Task> tasks = p.loadedTasks();
+        if (tasks == null) return; // released again already; the header totals still apply
+        List<Contribution> summary = summaries.remove(p.getId());
+        if (summary != null) {
+            for (Contribution c : summary) withdraw(c);
+        }
+        for (Task t : tasks) {
+            withdraw(contributions.remove(t.getId()));
+            contribute(t);
+        }
+    }
+
+    // ----- Internals -----
+
+    private static void ensureBuilt() {
+        if (built) return;
+
+        // Fetch first: a first-time load calls back into invalidate()
+        List<Project> projects = ProjectRepository.getAll();
+        List<Member> members = UserRepository.getAllMembers();
+
+        invalidate();
+        built = true;
+        for (Member m : members) memberAdded(m);
+        for (Project p : projects) {
+            // Never load tasks from here: the loader takes the repository lock, whose
+            // holders call into this index
+            List<Task> tasks = p.loadedTasks();
+            ProjectHeader h = tasks == null ? ProjectRepository.header(p.getId()) : null;
+            if (h != null) {
+                contribute(p.getId(), h);
+            } else if (tasks != null) {
+                for (Task t : tasks) contribute(t);
+            }
+        }
+    }
+
+    private static void contribute(String projectId, ProjectHeader h) {
+        List<Contribution> summary = new ArrayList<>(h.load.size());
+        for (Map.Entry<String, ProjectHeader.MemberLoad> e : h.load.entrySet()) {
+            Contribution c = new Contribution(e.getKey(), e.getValue().openTasks, e.getValue().remaining);
+            summary.add(c);
+            adjust(c.memberId, c.openTasks, c.remaining);
+        }
+        summaries.put(projectId, summary);
+    }
+
+    private static void contribute(Task t) {
+        String memberId = t.getAssignedMemberId();
+        if (memberId == null) return;
+
+        boolean open = !t.isCompleted();
+        double remaining = open ? 100 - t.getProgress() : 0;
+        contributions.put(t.getId(), new Contribution(memberId, open ? 1 : 0, remaining));
+        adjust(memberId, open ? 1 : 0, remaining);
+    }
+
+    private static void withdraw(Contribution c) {
+        if (c != null) adjust(c.memberId, -c.openTasks, -c.remaining);
+    }
+
+    private static void adjust(String memberId, int openDelta, double remainingDelta) {
+        if (openDelta == 0 && remainingDelta == 0) return;
+        Load l = load(memberId);
+        if (l.member) ranked.remove(l);
+        l.openTasks += openDelta;
+        l.remaining += remainingDelta;
+        if (l.member) ranked.add(l);
+    }
+
+    private static Load load(String memberId) {
+        return loads.computeIfAbsent(memberId, Load::new);
+    }
+}
@@ -0,0 +1,142 @@
+package repository;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces save requests into at most one write per interval on a single
+ * background thread. Callers mark the store dirty and return immediately;
+ * flush() forces everything requested so far to be written. A failed write
+ * leaves the writer dirty, is retried on the next interval and fails flush().
+ */
+class WriteBehindWriter {
+
+    /** Writes the whole store; the future completes once the write is durable */
+    interface Write {
+        CompletableFuture<Void> run() throws IOException;
+    }
+
+    private final String name;
+    private final Write writeAction;
+    private final long intervalMs;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // Changes handed to the last write; only touched on the writer thread
+    private long issued = 0;
+    // Changes known to be on disk
+    private final AtomicLong written = new AtomicLong();
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private volatile long lastWriteAt = 0;
+
+    WriteBehindWriter(String name, long intervalMs, Write writeAction) {
+        this.name = name;
+        this.intervalMs = intervalMs;
+        this.writeAction = writeAction;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Clean JVM exit (window closed, System.exit) must not lose pending changes
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, name + "-writer-shutdown"));
+    }
+
+    /** Record that the store changed; the write happens later on the writer thread */
+    void markDirty() {
+        requested.incrementAndGet();
+        scheduleWrite(Math.max(0, lastWriteAt + intervalMs - System.currentTimeMillis()));
+    }
+
+    /** True when changes are waiting to be written */
+    boolean isDirty() {
+        return requested.get() != written.get();
+    }
+
+    /**
+     * Write all changes requested so far; the future completes once they are on
+     * disk, or exceptionally if the write failed.
+     */
+    CompletableFuture<Void> flush() {
+        if (executor.isShutdown()) {
+            return isDirty()
+                    ? CompletableFuture.failedFuture(new IOException(name + " writer stopped with unsaved changes"))
+                    : CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(this::writeIfDirty, executor).thenCompose(f -> f);
+    }
+
+    /** Flush synchronously and stop the writer thread; throws if the last changes could not be written */
+    void shutdown() {
+        if (executor.isShutdown()) return;
+        try {
+            flush().join();
+        } catch (CompletionException e) {
+            System.err.println(name + ": changes could not be written before exit");
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void scheduleWrite(long delayMs) {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.schedule(() -> { writeIfDirty(); }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException stopped) {
+            scheduled.set(false); // shutting down; flush() reports what is left
+        }
+    }
+
+    /** Runs on the writer thread; returns the future of the write covering every request so far */
+    private CompletableFuture<Void> writeIfDirty() {
+        scheduled.set(false);
+        long target = requested.get();
+        if (target == issued) return lastWrite;
+
+        try {
+            CompletableFuture<Void> durable = writeAction.run();
+            issued = target;
+            lastWrite = durable.whenComplete((v, e) -> {
+                if (e == null) {
+                    written.accumulateAndGet(target, Math::max);
+                } else {
+                    System.err.println(name + " write-behind flush failed");
+                    e.printStackTrace();
+                    retry();
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            System.err.println(name + " write-behind flush failed");
+            e.printStackTrace();
+            lastWrite = CompletableFuture.failedFuture(e);
+        } finally {
+            lastWriteAt = System.currentTimeMillis();
+        }
+
+        // Changes that arrived while writing, or a failed write, get the next slot
+        if (requested.get() != issued) scheduleWrite(intervalMs);
+        return lastWrite;
+    }
+
+    /** A write failed after it was handed off: write everything not on disk again */
+    private void retry() {
+        try {
+            executor.execute(() -> {
+                issued = written.get();
+                scheduleWrite(intervalMs);
+            });
+        } catch (RejectedExecutionException stopped) {
+            // Shutting down; flush() reports the unsaved changes
+        }
+    }
+}
@@ -1,29 +1,52 @@
 package services;
 
 import models.*;
+import repository.AsyncUserRepository;
 import repository.UserRepository;
+import utils.Metrics;
+
+import java.util.concurrent.CompletableFuture;
 
 public class AuthService {
 
+    private static final Metrics.Timer loginTimer = Metrics.timer("AuthService.login");
+    private static final Metrics.Counter loginFailures = Metrics.counter("AuthService.loginFailures");
+
     public static User login(String email, String password) {
-        return UserRepository.findByEmailAndPassword(email, password);
+        long start = loginTimer.start();
+        User user = UserRepository.findByEmailAndPassword(email, password);
+        loginTimer.stop(start);
+        if (user == null) loginFailures.increment();
+        return user;
     }
 
     public static boolean register(String name, String email, String password, String role) {
-        if (UserRepository.existsByEmail(email)) return false;
+        User user = newUser(name, email, password, role);
+        return user != null && UserRepository.add(user);
+    }
+
+    /**
+     * Same as register(), checking the email and saving the new user in one
+     * step on the repository I/O thread, so a second click while the first is
+     * pending completes with false. A failed write completes exceptionally.
+     */
+    public static CompletableFuture<Boolean> registerAsync(String name, String email, String password, String role) {
+        User user = newUser(name, email, password, role);
+        if (user == null) return CompletableFuture.completedFuture(false);
 
+        return AsyncUserRepository.add(user);
+    }
+
+    /** The user to register, or null if the role is unknown; UserRepository.add() rejects a taken email */
+    private static User newUser(String name, String email, String password, String role) {
         String id = UserRepository.generateId(role);
-        User user;
 
         switch(role) {
-            case "MANAGER": user = new Manager(id,name,email,password); break;
-            case "MEMBER":  user = new Member(id,name,email,password);  break;
-            case "CLIENT":  user = new Client(id,name,email,password);  break;
-            case "ADMIN":   user = new Admin(id,name,email,password);   break;
-            default:        return false;
+            case "MANAGER": return new Manager(id,name,email,password);
+            case "MEMBER":  return new Member(id,name,email,password);
+            case "CLIENT":  return new Client(id,name,email,password);
+            case "ADMIN":   return new Admin(id,name,email,password);
+            default:        return null;
         }
-
-        UserRepository.add(user);
-        return true;
     }
 }
\ No newline at end of file
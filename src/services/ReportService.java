@@ -0,0 +1,240 @@
+package services;
+
+import models.Member;
+import models.Project;
+import models.Task;
+import repository.ProjectRepository;
+import repository.UserRepository;
+import utils.JSONFileHandler;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Task reports for one, several or all projects, streamed to a Writer or file.
+ * Project sections are rendered in parallel on the common fork-join pool but
+ * written in the order given; at most a few sections per worker are held in
+ * memory at a time, so a portfolio-wide report runs in flat memory.
+ */
+public class ReportService {
+
+    /** Output format of a report */
+    public enum Format {
+        /** The plain text layout of TaskService.getReportForProject() */
+        TEXT,
+        /** One row per task, with a header row */
+        CSV,
+        /** A heading and a task table per project */
+        MARKDOWN;
+
+        /** Format by name (text, csv, md or markdown) */
+        public static Format of(String name) {
+            switch (name.trim().toLowerCase()) {
+                case "text": case "txt": return TEXT;
+                case "csv": return CSV;
+                case "md": case "markdown": return MARKDOWN;
+                default: throw new IllegalArgumentException("Unknown report format: " + name);
+            }
+        }
+    }
+
+    private static final String UNKNOWN = "Unknown";
+    private static final String CSV_HEADER = "project_id,project,task_id,task,assigned_to,status,progress\n";
+
+    /** Report on one project */
+    public static void write(Project p, Format format, Writer out) throws IOException {
+        write(List.of(p), format, out);
+    }
+
+    /** Report on every project */
+    public static void writeAll(Format format, Writer out) throws IOException {
+        write(ProjectRepository.getAll(), format, out);
+    }
+
+    /** Report on the given projects, in their order */
+    public static void write(List<Project> projects, Format format, Writer out) throws IOException {
+        NameLookup names = new NameLookup();
+        if (format == Format.CSV) out.write(CSV_HEADER);
+
+        // Sections in flight; the oldest is written as soon as it is done, keeping the order
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism();
+        Deque<CompletableFuture<String>> pending = new ArrayDeque<>();
+        boolean first = true;
+        for (Project p : projects) {
+            if (p == null) continue;
+            pending.add(CompletableFuture.supplyAsync(() -> section(p, format, names), ForkJoinPool.commonPool()));
+            if (pending.size() >= window) {
+                writeSection(pending.remove(), format, first, out);
+                first = false;
+            }
+        }
+        while (!pending.isEmpty()) {
+            writeSection(pending.remove(), format, first, out);
+            first = false;
+        }
+        out.flush();
+    }
+
+    /** Write the report to a file; like the data files it replaces the target only once complete */
+    public static void writeToFile(List<Project> projects, Format format, Path file) throws IOException {
+        JSONFileHandler.write(file.toString(), w -> write(projects, format, w)).join();
+    }
+
+    /** The report as a String; for single projects shown in the UI */
+    public static String toString(Project p, Format format) {
+        StringWriter out = new StringWriter();
+        try {
+            write(p, format, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter does not throw
+        }
+        return out.toString();
+    }
+
+    private static void writeSection(CompletableFuture<String> section, Format format, boolean first, Writer out) throws IOException {
+        String text;
+        try {
+            text = section.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        if (!first && format != Format.CSV) out.write('\n'); // blank line between sections
+        out.write(text);
+    }
+
+    private static String section(Project p, Format format, NameLookup names) {
+        List<Task> tasks = tasksOf(p);
+        StringBuilder sb = new StringBuilder(64 + tasks.size() * 80);
+        switch (format) {
+            case CSV:
+                for (Task t : tasks) {
+                    csv(sb, p.getId()).append(',');
+                    csv(sb, p.getName()).append(',');
+                    csv(sb, t.getId()).append(',');
+                    csv(sb, t.getDescription()).append(',');
+                    csv(sb, names.of(t.getAssignedMemberId())).append(',');
+                    sb.append(status(t)).append(',');
+                    sb.append(Math.round(t.getProgress())).append('\n');
+                }
+                break;
+            case MARKDOWN:
+                sb.append("## ").append(markdown(p.getName())).append("\n\n");
+                if (tasks.isEmpty()) {
+                    sb.append("_No tasks._\n");
+                    break;
+                }
+                sb.append("| Task | Assigned to | Status |\n");
+                sb.append("|---|---|---|\n");
+                for (Task t : tasks) {
+                    sb.append("| ").append(markdown(t.getDescription()))
+                      .append(" | ").append(markdown(names.of(t.getAssignedMemberId())))
+                      .append(" | ").append(status(t))
+                      .append(" |\n");
+                }
+                break;
+            default:
+                sb.append("Project: ").append(p.getName()).append("\n");
+                sb.append("------------------------------------------------\n");
+                for (Task t : tasks) {
+                    sb.append("- ")
+                      .append(t.getDescription())
+                      .append(" | Assigned to: ").append(names.of(t.getAssignedMemberId()))
+                      .append(" | Status: ").append(status(t))
+                      .append("\n");
+                }
+        }
+        return sb.toString();
+    }
+
+    /** Copy of the task list, so writers changing tasks meanwhile do not disturb the section */
+    private static List<Task> tasksOf(Project p) {
+        while (true) {
+            p.getTasks(); // loads the list if only the header is in memory
+            List<Task> tasks = p.loadedTasks();
+            if (tasks != null) return tasks;
+            // Released again before the copy was taken; load it once more
+        }
+    }
+
+    private static String status(Task t) {
+        return t.isCompleted() ? "Completed" : "Pending";
+    }
+
+    /** Append a CSV field, quoted when it contains a separator, quote or line break */
+    private static StringBuilder csv(StringBuilder sb, String value) {
+        if (value == null) return sb;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return sb.append(value);
+        }
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /** Keep a value inside its table cell */
+    private static String markdown(String value) {
+        if (value == null) return "";
+        return value.replace("|", "\\|").replace("\r", "").replace('\n', ' ');
+    }
+
+    /** Member names by id, each resolved once per report */
+    private static class NameLookup {
+        private final Map<String, String> names = new ConcurrentHashMap<>();
+
+        String of(String memberId) {
+            if (memberId == null) return UNKNOWN;
+            return names.computeIfAbsent(memberId, id -> {
+                Member m = UserRepository.getMemberById(id);
+                return m != null ? m.getName() : UNKNOWN;
+            });
+        }
+    }
+
+    /**
+     * Usage: ReportService &lt;text|csv|md&gt; &lt;output file | -&gt; [projectId...]
+     * Reports on the given projects, or on all of them; "-" writes to stdout.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ReportService <text|csv|md> <output file | -> [projectId...]");
+            System.exit(2);
+        }
+        Format format = Format.of(args[0]);
+        UserRepository.loadAll();
+        ProjectRepository.loadAll();
+
+        List<Project> projects = new ArrayList<>();
+        if (args.length == 2) {
+            projects.addAll(ProjectRepository.getAll());
+        } else {
+            for (int i = 2; i < args.length; i++) {
+                Project p = ProjectRepository.findById(args[i]);
+                if (p != null) projects.add(p);
+                else System.err.println("No project " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        if (args[1].equals("-")) {
+            write(projects, format, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        } else {
+            writeToFile(projects, format, Path.of(args[1]));
+            System.err.println("Wrote " + projects.size() + " projects to " + args[1] + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        ProjectRepository.shutdown();
+    }
+}
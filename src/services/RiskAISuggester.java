@@ -1,12 +1,124 @@
 package services;
 
 import models.Project;
+import repository.ProjectRepository;
+import utils.AppConfig;
+import utils.Metrics;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 public class RiskAISuggester {
 
+    /** A project together with its risk score */
+    public static class RiskScore {
+        private final Project project;
+        private final double risk;
+
+        public RiskScore(Project project, double risk) {
+            this.project = project;
+            this.risk = risk;
+        }
+
+        public Project getProject() { return project; }
+        public double getRisk() { return risk; }
+
+        @Override
+        public String toString() {
+            return String.format("%3d%%  %s", Math.round(risk * 100), project);
+        }
+    }
+
+    /** Score and suggestions computed for one version of a project; either may still be missing */
+    private static class CachedResult {
+        final long version;
+        volatile Double risk;
+        volatile List<String> suggestions;
+
+        CachedResult(long version) { this.version = version; }
+    }
+
+    // Results by project id; an entry is only used while its version matches the project's
+    private static final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+    private static final int CACHE_SIZE = AppConfig.riskCacheSize();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    // Only computations are timed; cache hits show up in the hit count
+    private static final Metrics.Timer riskTimer = Metrics.timer("RiskAISuggester.computeRisk");
+    private static final Metrics.Timer suggestTimer = Metrics.timer("RiskAISuggester.suggest");
+    private static final Metrics.Timer portfolioTimer = Metrics.timer("RiskAISuggester.scorePortfolio");
+
+    static {
+        Metrics.gauge("RiskAISuggester.cacheHits", hits::sum);
+        Metrics.gauge("RiskAISuggester.cacheMisses", misses::sum);
+        Metrics.gauge("RiskAISuggester.cacheSize", cache::size);
+    }
+
+    // Highest risk first; ties keep a stable order by project id
+    private static final Comparator<RiskScore> BY_RISK = Comparator
+            .comparingDouble(RiskScore::getRisk).reversed()
+            .thenComparing(s -> String.valueOf(s.getProject().getId()));
+
+    // Below this many projects a fork-join task scores its range itself
+    private static final int SPLIT_THRESHOLD = 1024;
+
+    /** Scores projects[from, to) into scores[from, to), splitting in halves across the pool */
+    private static class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks only run in this JVM's pool and are never serialized
+        private final transient Project[] projects;
+        private final transient RiskScore[] scores;
+        private final int from, to;
+
+        ScoreTask(Project[] projects, RiskScore[] scores, int from, int to) {
+            this.projects = projects;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) scores[i] = new RiskScore(projects[i], computeRisk(projects[i]));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(projects, scores, from, mid), new ScoreTask(projects, scores, mid, to));
+        }
+    }
+
+    /** Suggestions for a project, memoized until the project changes */
     public static List<String> suggest(Project project) {
+        if (project == null || project.getId() == null) return computeSuggestions(project);
+
+        CachedResult c = cached(project);
+        List<String> suggestions = c.suggestions;
+        if (suggestions != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long start = suggestTimer.start();
+            suggestions = Collections.unmodifiableList(computeSuggestions(project));
+            suggestTimer.stop(start);
+            c.suggestions = suggestions;
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    private static List<String> computeSuggestions(Project project) {
         List<String> suggestions = new ArrayList<>();
         if (project == null) return suggestions;
 
@@ -37,7 +149,7 @@ public class RiskAISuggester {
 }
 
         // ----- Task analysis -----
-        if (project.getTasks() == null || project.getTasks().isEmpty()) {
+        if (project.getTaskCount() == 0) {
             suggestions.add(
         "No tasks have been defined for this project, which may indicate an incomplete or unclear project plan. "
       + "Breaking the project into well-defined tasks will improve tracking, accountability, and execution efficiency."
@@ -45,7 +157,7 @@ public class RiskAISuggester {
             return suggestions;
 }
 
-        long incomplete = project.getTasks().stream().filter(t->!t.isCompleted()).count();
+        long incomplete = project.getTaskCount() - project.getCompletedTaskCount();
 
         if (incomplete > 5) {
             suggestions.add(
@@ -68,8 +180,25 @@ public class RiskAISuggester {
 
     }
 
-    /** Compute risk score for a project (0.0 to 1.0) */
+    /** Compute risk score for a project (0.0 to 1.0), memoized until the project changes */
     public static double computeRisk(Project project) {
+        if (project == null || project.getId() == null) return computeRiskUncached(project);
+
+        CachedResult c = cached(project);
+        Double risk = c.risk;
+        if (risk != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long start = riskTimer.start();
+            risk = computeRiskUncached(project);
+            riskTimer.stop(start);
+            c.risk = risk;
+        }
+        return risk;
+    }
+
+    private static double computeRiskUncached(Project project) {
         if (project == null) return 1.0;
 
         double risk = 0.0;
@@ -79,10 +208,11 @@ public class RiskAISuggester {
         else if (project.getProgress() < 60) risk += 0.2;
         else if (project.getProgress() < 90) risk += 0.1;
 
-        // Factor 2: Many incomplete tasks increase risk
-        if (project.getTasks() != null && !project.getTasks().isEmpty()) {
-            long incomplete = project.getTasks().stream().filter(t -> !t.isCompleted()).count();
-            double ratio = (double) incomplete / project.getTasks().size();
+        // Factor 2: Many incomplete tasks increase risk (running counts, no task scan)
+        int taskCount = project.getTaskCount();
+        if (taskCount > 0) {
+            int incomplete = taskCount - project.getCompletedTaskCount();
+            double ratio = (double) incomplete / taskCount;
             risk += ratio * 0.3;
         } else {
             risk += 0.3; // No tasks defined = high risk
@@ -91,4 +221,79 @@ public class RiskAISuggester {
         // Cap risk at 1.0
         return Math.min(risk, 1.0);
     }
-}
\ No newline at end of file
+
+    // ----- Result cache -----
+
+    /** Cache entry for the project's current version, replacing one for an older version */
+    private static CachedResult cached(Project project) {
+        // Read the version before computing: a change made meanwhile then simply misses next time
+        long version = project.getVersion();
+        CachedResult c = cache.get(project.getId());
+        if (c != null && c.version == version) return c;
+
+        CachedResult fresh = new CachedResult(version);
+        cache.put(project.getId(), fresh);
+        if (cache.size() > CACHE_SIZE) trimCache();
+        return fresh;
+    }
+
+    /** Drop arbitrary entries down to 3/4 of the bound, so trimming is rare and amortized */
+    private static void trimCache() {
+        int target = CACHE_SIZE - CACHE_SIZE / 4;
+        Iterator<String> it = cache.keySet().iterator();
+        while (cache.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /** Lookups answered from the cache (scores and suggestions) */
+    public static long cacheHits() { return hits.sum(); }
+
+    /** Lookups that had to compute the result */
+    public static long cacheMisses() { return misses.sum(); }
+
+    public static int cacheSize() { return cache.size(); }
+
+    public static void clearCache() {
+        cache.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    // ----- Portfolio scoring -----
+
+    /** Score every project in parallel on the common fork-join pool; highest risk first */
+    public static List<RiskScore> scorePortfolio(List<Project> projects) {
+        long start = portfolioTimer.start();
+        Project[] snapshot = projects.toArray(new Project[0]);
+        RiskScore[] scores = new RiskScore[snapshot.length];
+        ForkJoinPool.commonPool().invoke(new ScoreTask(snapshot, scores, 0, snapshot.length));
+        Arrays.parallelSort(scores, BY_RISK);
+        portfolioTimer.stop(start);
+        return new ArrayList<>(Arrays.asList(scores));
+    }
+
+    /** Same as scorePortfolio() off the calling thread, so the UI thread is never blocked */
+    public static CompletableFuture<List<RiskScore>> scorePortfolioAsync(List<Project> projects) {
+        // Copy on the caller's thread: the list may be the repository's live list
+        List<Project> snapshot = new ArrayList<>(projects);
+        return CompletableFuture.supplyAsync(() -> scorePortfolio(snapshot), ForkJoinPool.commonPool());
+    }
+
+    /** Usage: RiskAISuggester [limit] - prints the riskiest projects of the configured data directory */
+    public static void main(String[] args) {
+        int limit = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        ProjectRepository.loadAll();
+
+        long start = System.nanoTime();
+        List<RiskScore> scores = scorePortfolio(ProjectRepository.getAll());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Scored " + scores.size() + " projects in " + elapsedMs + " ms");
+        System.out.println("Cache: " + cacheHits() + " hits, " + cacheMisses() + " misses");
+        for (RiskScore s : scores.subList(0, Math.min(limit, scores.size()))) {
+            System.out.println(s);
+        }
+    }
+}
@@ -4,10 +4,10 @@ import models.Member;
 import models.Project;
 import models.Task;
 import repository.UserRepository;
+import repository.WorkloadIndex;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class TaskService {
 
@@ -22,42 +22,35 @@ public class TaskService {
 
     /**
      * Returns least busy member:
-     * defined as member with the fewest assigned tasks.
+     * defined as member with the fewest open tasks across all projects
+     * (ties broken by least remaining progress).
      */
     public static Member getLeastBusyMember(Project p) {
-        List<Member> members = UserService.getTeamMembers();
-        if (members.isEmpty()) return null;
-
-        return members.stream()
-                .min((m1, m2) -> {
-                    long m1Tasks = p.getTasks().stream().filter(t -> t.getAssignedTo().equals(m1.getId())).count();
-                    long m2Tasks = p.getTasks().stream().filter(t -> t.getAssignedTo().equals(m2.getId())).count();
-                    return Long.compare(m1Tasks, m2Tasks);
-                })
-                .orElse(members.get(0));
+        return getLeastBusyMember();
+    }
+
+    /** Least busy member across all projects, or null if there are no members. */
+    public static Member getLeastBusyMember() {
+        String id = WorkloadIndex.leastBusyMemberId();
+        return id != null ? UserRepository.getMemberById(id) : null;
+    }
+
+    /** The n least busy members, least busy first. */
+    public static List<Member> getLeastBusyMembers(int n) {
+        List<Member> members = new ArrayList<>();
+        for (String id : WorkloadIndex.leastBusyMemberIds(n)) {
+            Member m = UserRepository.getMemberById(id);
+            if (m != null) members.add(m);
+        }
+        return members;
     }
 
     /**
      * Generate text report for a single project.
+     * ReportService streams the same report for many projects, also as CSV or Markdown.
      */
     public static String getReportForProject(Project p) {
         if (p == null) return "No project selected.";
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Project: ").append(p.getName()).append("\n");
-        sb.append("------------------------------------------------\n");
-
-        for (Task t : p.getTasks()) {
-            Member assigned = UserRepository.getMemberById(t.getAssignedTo());
-            String memberName = (assigned != null) ? assigned.getName() : "Unknown";
-
-            sb.append("- ")
-              .append(t.getDescription())
-              .append(" | Assigned to: ").append(memberName)
-              .append(" | Status: ").append(t.isCompleted() ? "Completed" : "Pending")
-              .append("\n");
-        }
-
-        return sb.toString();
+        return ReportService.toString(p, ReportService.Format.TEXT);
     }
 }
\ No newline at end of file
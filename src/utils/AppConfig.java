@@ -0,0 +1,105 @@
+package utils;
+
+/**
+ * Deployment switches read from -Dsmartpm.* system properties,
+ * so the same build can run with different storage settings.
+ */
+public class AppConfig {
+
+    /** Directory holding users.json, projects.json and related files */
+    public static String dataDir() {
+        return System.getProperty("smartpm.data.dir", "data");
+    }
+
+    /** When true, project mutations are appended to a journal instead of rewriting projects.json */
+    public static boolean journalEnabled() {
+        return Boolean.parseBoolean(System.getProperty("smartpm.journal", "false"));
+    }
+
+    /** Number of journal records after which the journal is compacted into a new snapshot */
+    public static int journalCompactThreshold() {
+        return Integer.getInteger("smartpm.journal.compactEvery", 500);
+    }
+
+    /** When true, saveAll() only marks projects dirty and a background thread writes them */
+    public static boolean writeBehindEnabled() {
+        return Boolean.parseBoolean(System.getProperty("smartpm.writeBehind", "false"));
+    }
+
+    /** Minimum time between two background writes in write-behind mode */
+    public static long writeBehindIntervalMs() {
+        return Long.getLong("smartpm.writeBehind.intervalMs", 1000L);
+    }
+
+    /** fsync policy for data files: none, per-write (default) or group-commit; an unknown value falls back to per-write */
+    public static JSONFileHandler.Durability durability() {
+        String value = System.getProperty("smartpm.durability", "per-write");
+        try {
+            return JSONFileHandler.Durability.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown smartpm.durability \"" + value + "\", using per-write");
+            return JSONFileHandler.Durability.PER_WRITE;
+        }
+    }
+
+    /** How long group commit collects writes before forcing them together */
+    public static long groupCommitWindowMs() {
+        return Long.getLong("smartpm.durability.groupCommitMs", 50L);
+    }
+
+    /** Storage backend: files (default, see format and layout) or kv (embedded key-value store under store/) */
+    public static boolean kvStorage() {
+        return "kv".equalsIgnoreCase(System.getProperty("smartpm.storage.backend", "files").trim());
+    }
+
+    /** Snapshot format for projects: json (default) or binary (projects.bin); files backend only */
+    public static boolean binarySnapshots() {
+        return !kvStorage() && "binary".equalsIgnoreCase(System.getProperty("smartpm.storage.format", "json").trim());
+    }
+
+    /** Compression of the files backend's data files: none (default) or gzip; compressed files are detected on read either way */
+    public static boolean compressedStorage() {
+        return "gzip".equalsIgnoreCase(System.getProperty("smartpm.storage.compression", "none").trim());
+    }
+
+    /** Storage layout: single (one projects file, default) or sharded (one file per project); files backend only */
+    public static boolean shardedStorage() {
+        return !kvStorage() && "sharded".equalsIgnoreCase(System.getProperty("smartpm.storage.layout", "single").trim());
+    }
+
+    /** When true (sharded layout only), projects start as headers and load their tasks on first access */
+    public static boolean lazyTasks() {
+        return shardedStorage() && Boolean.parseBoolean(System.getProperty("smartpm.lazyTasks", "false"));
+    }
+
+    /** Maximum number of projects whose risk score and suggestions are memoized */
+    public static int riskCacheSize() {
+        return Integer.getInteger("smartpm.risk.cacheSize", 10_000);
+    }
+
+    /** Maximum number of projects whose task lists stay in memory in lazy mode (unsaved ones are kept regardless) */
+    public static int taskCacheSize() {
+        return Integer.getInteger("smartpm.lazyTasks.cacheSize", 64);
+    }
+
+    /** When true, other app instances may use the same data directory: writes are locked and their changes merged in */
+    public static boolean sharedDataDir() {
+        return Boolean.parseBoolean(System.getProperty("smartpm.shared", "false"));
+    }
+
+    /** When true, load/save/login/navigation timings are collected and exposed over JMX (see Metrics) */
+    public static boolean metricsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("smartpm.metrics", "false"));
+    }
+
+    /** File the metrics are dumped to as JSON, periodically and on exit; null for none */
+    public static String metricsFile() {
+        String file = System.getProperty("smartpm.metrics.file");
+        return file == null || file.isBlank() ? null : file;
+    }
+
+    /** Time between two metrics dumps */
+    public static long metricsDumpIntervalMs() {
+        return Long.getLong("smartpm.metrics.dumpIntervalMs", 60_000L);
+    }
+}
@@ -0,0 +1,148 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches fsyncs for the GROUP_COMMIT durability policy. Writes queued within
+ * one window share a single force + rename pass on a background thread, and
+ * a newer write to the same file replaces an older one that is still queued.
+ */
+class GroupCommitter {
+
+    /** A fully written temp file waiting to be forced and renamed over its target */
+    private static class PendingRename {
+        final Path temp;
+        final FileChannel channel;
+
+        PendingRename(Path temp, FileChannel channel) {
+            this.temp = temp;
+            this.channel = channel;
+        }
+    }
+
+    private final long windowMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "group-commit");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Guarded by this
+    private Map<Path, PendingRename> renames = new LinkedHashMap<>();
+    private Set<FileChannel> forces = new LinkedHashSet<>();
+    private CompletableFuture<Void> batch = new CompletableFuture<>();
+    private boolean scheduled = false;
+    private Set<Path> inFlightTargets = Collections.emptySet();
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+
+    GroupCommitter(long windowMs) {
+        this.windowMs = windowMs;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> sync().join(), "group-commit-shutdown"));
+    }
+
+    /** Queue a written temp file; the future completes once it has replaced the target durably */
+    synchronized CompletableFuture<Void> submitRename(Path temp, FileChannel channel, Path target) {
+        PendingRename superseded = renames.put(target, new PendingRename(temp, channel));
+        if (superseded != null) discard(superseded);
+        schedule();
+        return batch;
+    }
+
+    /** Queue an fsync of an append-only channel */
+    synchronized CompletableFuture<Void> submitForce(FileChannel channel) {
+        forces.add(channel);
+        schedule();
+        return batch;
+    }
+
+    /** Completes once any queued or in-progress write to the target is visible on disk */
+    synchronized CompletableFuture<Void> awaitTarget(Path target) {
+        CompletableFuture<Void> queued = renames.containsKey(target) ? batch : CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> running = inFlightTargets.contains(target) ? inFlight : CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(queued, running);
+    }
+
+    /** Commit everything queued so far without waiting for the window to elapse */
+    CompletableFuture<Void> sync() {
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            if (renames.isEmpty() && forces.isEmpty()) return inFlight;
+            pending = batch;
+        }
+        if (!executor.isShutdown()) executor.execute(this::commit);
+        return pending;
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            executor.schedule(this::commit, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void commit() {
+        Map<Path, PendingRename> toRename;
+        Set<FileChannel> toForce;
+        CompletableFuture<Void> done;
+
+        synchronized (this) {
+            if (renames.isEmpty() && forces.isEmpty()) return;
+            toRename = renames;
+            toForce = forces;
+            done = batch;
+            renames = new LinkedHashMap<>();
+            forces = new LinkedHashSet<>();
+            batch = new CompletableFuture<>();
+            scheduled = false;
+            inFlightTargets = toRename.keySet();
+            inFlight = done;
+        }
+
+        // Renames not done yet; on failure their channels and temp files are cleaned up
+        Deque<Map.Entry<Path, PendingRename>> remaining = new ArrayDeque<>(toRename.entrySet());
+        try {
+            for (FileChannel ch : toForce) {
+                if (ch.isOpen()) ch.force(false);
+            }
+
+            Set<Path> dirs = new LinkedHashSet<>();
+            while (!remaining.isEmpty()) {
+                Map.Entry<Path, PendingRename> e = remaining.peek();
+                PendingRename p = e.getValue();
+                p.channel.force(false);
+                p.channel.close();
+                JSONFileHandler.replace(p.temp, e.getKey());
+                remaining.remove();
+                dirs.add(e.getKey().toAbsolutePath().getParent());
+            }
+            for (Path dir : dirs) JSONFileHandler.forceDirectory(dir);
+
+            done.complete(null);
+        } catch (IOException e) {
+            e.printStackTrace();
+            for (Map.Entry<Path, PendingRename> r : remaining) discard(r.getValue());
+            done.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                inFlightTargets = Collections.emptySet();
+            }
+        }
+    }
+
+    private static void discard(PendingRename p) {
+        try {
+            p.channel.close();
+            Files.deleteIfExists(p.temp);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
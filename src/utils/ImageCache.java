@@ -0,0 +1,23 @@
+package utils;
+
+import javafx.scene.image.Image;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Decoded images by resource path, so every screen showing the logo shares one Image */
+public class ImageCache {
+
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    /** Image for a classpath resource such as "/images/logo.png", or null if it does not exist */
+    public static Image get(String resource) {
+        Image cached = images.get(resource);
+        if (cached != null) return cached;
+
+        URL url = ImageCache.class.getResource(resource);
+        if (url == null) return null;
+        return images.computeIfAbsent(resource, r -> new Image(url.toExternalForm()));
+    }
+}
@@ -0,0 +1,22 @@
+package utils;
+
+import javafx.scene.control.ListView;
+
+import java.util.List;
+
+public class ListViews {
+
+    /**
+     * Re-render the one cell showing the item (if it is listed) after the item
+     * changed, instead of refresh() re-rendering every visible cell. Keeps the
+     * item selected if it was.
+     */
+    public static <T> void refreshItem(ListView<T> view, T item) {
+        List<T> items = view.getItems();
+        int i = items.indexOf(item);
+        if (i < 0) return;
+        boolean selected = view.getSelectionModel().isSelected(i);
+        items.set(i, item);
+        if (selected && !view.getSelectionModel().isSelected(i)) view.getSelectionModel().select(i);
+    }
+}
@@ -0,0 +1,306 @@
+package utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histograms, counters and gauges for the expensive operations
+ * (loading, saving, login, navigation, risk scoring), switched on with
+ * -Dsmartpm.metrics=true. Every metric is registered as a JMX MXBean under
+ * "smartpm:type=...,name=..." and, with smartpm.metrics.file set, dumped to
+ * that file as JSON periodically and on exit.
+ *
+ * Call sites keep their Timer/Counter in a static final field. While metrics
+ * are disabled, start(), stop() and increment() only test a static final
+ * flag, which the JIT folds away.
+ */
+public class Metrics {
+
+    private static final boolean ENABLED = AppConfig.metricsEnabled();
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    // ----- JMX views -----
+
+    /** JMX view of a Timer; times in milliseconds */
+    public interface TimerMXBean {
+        long getCount();
+        double getTotalMillis();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP90Millis();
+        double getP99Millis();
+        double getMaxMillis();
+        void reset();
+    }
+
+    /** JMX view of a Counter */
+    public interface CounterMXBean {
+        long getCount();
+        void reset();
+    }
+
+    /** JMX view of a gauge */
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    /** JMX view of the whole registry */
+    public interface RegistryMXBean {
+        /** Current values of every metric, as the JSON written to the dump file */
+        String getSnapshot();
+        void resetAll();
+        /** Write the dump file now; returns its path, or null if none is configured */
+        String dump();
+    }
+
+    // ----- Metric types -----
+
+    /**
+     * Latency histogram: buckets grow by powers of two with 8 linear steps each,
+     * so percentiles are within 12.5% of the true value over any range, in a
+     * fixed 512-slot array of counts updated without locks.
+     */
+    public static class Timer implements TimerMXBean {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        /** Start time to pass to stop(), or 0 when metrics are disabled */
+        public long start() {
+            return ENABLED ? System.nanoTime() : 0;
+        }
+
+        /** Record the time since start() */
+        public void stop(long start) {
+            if (ENABLED) record(System.nanoTime() - start);
+        }
+
+        /** Record one duration in nanoseconds */
+        public void record(long nanos) {
+            if (!ENABLED) return;
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        private static int bucket(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) nanos;
+            int exp = 63 - Long.numberOfLeadingZeros(nanos); // >= SUB_BITS
+            int sub = (int) (nanos >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /** Upper bound of a bucket in nanoseconds */
+        private static long bucketLimit(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket + 1;
+            int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exp - SUB_BITS));
+        }
+
+        /** The q-quantile (0..1) in nanoseconds, from the bucket counts */
+        public long percentileNanos(double q) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(bucketLimit(i), maxNanos.get());
+            }
+            return maxNanos.get();
+        }
+
+        @Override public long getCount() { return count.sum(); }
+        @Override public double getTotalMillis() { return totalNanos.sum() / 1e6; }
+        @Override public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+        }
+        @Override public double getP50Millis() { return percentileNanos(0.50) / 1e6; }
+        @Override public double getP90Millis() { return percentileNanos(0.90) / 1e6; }
+        @Override public double getP99Millis() { return percentileNanos(0.99) / 1e6; }
+        @Override public double getMaxMillis() { return maxNanos.get() / 1e6; }
+
+        @Override
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    /** Number of times something happened */
+    public static class Counter implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        private Counter() {}
+
+        public void increment() {
+            if (ENABLED) count.increment();
+        }
+
+        @Override public long getCount() { return count.sum(); }
+        @Override public void reset() { count.reset(); }
+    }
+
+    private static class Gauge implements GaugeMXBean {
+        private final LongSupplier value;
+
+        Gauge(LongSupplier value) { this.value = value; }
+
+        @Override public long getValue() { return value.getAsLong(); }
+    }
+
+    // ----- Registry -----
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    /** The timer with this name, created and registered on first use */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> register("Timer", n, new Timer(n)));
+    }
+
+    /** The counter with this name, created and registered on first use */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    /** Report a value owned elsewhere (a cache size, a running total) under this name */
+    public static void gauge(String name, LongSupplier value) {
+        if (!ENABLED) return;
+        if (gauges.putIfAbsent(name, value) == null) register("Gauge", name, new Gauge(value));
+    }
+
+    private static <T> T register(String type, String name, T bean) {
+        if (!ENABLED) return bean;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(bean, new ObjectName("smartpm:type=" + type + ",name=" + ObjectName.quote(name)));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return bean;
+    }
+
+    static {
+        if (ENABLED) {
+            register("Registry", "metrics", new Registry());
+            startDumping();
+        }
+    }
+
+    private static class Registry implements RegistryMXBean {
+        @Override public String getSnapshot() { return snapshotJson(); }
+        @Override public void resetAll() { Metrics.resetAll(); }
+        @Override public String dump() { return Metrics.dump(); }
+    }
+
+    public static void resetAll() {
+        for (Timer t : timers.values()) t.reset();
+        for (Counter c : counters.values()) c.reset();
+    }
+
+    /** Current values of every metric, sorted by name */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> timerValues = new TreeMap<>();
+        for (Timer t : timers.values()) {
+            Map<String, Object> v = new LinkedHashMap<>();
+            v.put("count", t.getCount());
+            v.put("meanMs", round(t.getMeanMillis()));
+            v.put("p50Ms", round(t.getP50Millis()));
+            v.put("p90Ms", round(t.getP90Millis()));
+            v.put("p99Ms", round(t.getP99Millis()));
+            v.put("maxMs", round(t.getMaxMillis()));
+            v.put("totalMs", round(t.getTotalMillis()));
+            timerValues.put(t.getName(), v);
+        }
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, c) -> counterValues.put(name, c.getCount()));
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, g) -> gaugeValues.put(name, g.getAsLong()));
+
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("time", java.time.Instant.now().toString());
+        all.put("timers", timerValues);
+        all.put("counters", counterValues);
+        all.put("gauges", gaugeValues);
+        return all;
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 1000) / 1000.0;
+    }
+
+    private static String snapshotJson() {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        return gson.toJson(snapshot());
+    }
+
+    /** Write the snapshot to smartpm.metrics.file; returns the path, or null if none is configured */
+    public static String dump() {
+        String file = AppConfig.metricsFile();
+        if (file == null || !ENABLED) return null;
+        try {
+            String json = snapshotJson();
+            JSONFileHandler.write(file, w -> w.write(json)).join();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return file;
+    }
+
+    private static void startDumping() {
+        if (AppConfig.metricsFile() == null) return;
+        long interval = AppConfig.metricsDumpIntervalMs();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(Metrics::dump, interval, interval, TimeUnit.MILLISECONDS);
+        // The last interval would otherwise be lost on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(Metrics::dump, "metrics-final-dump"));
+    }
+}
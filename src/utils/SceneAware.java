@@ -0,0 +1,19 @@
+package utils;
+
+/**
+ * Implemented by controllers of scenes that SceneController caches and reuses.
+ * initialize() runs once, possibly on the preloading thread, so anything that
+ * depends on the logged-in user or on repository data belongs in onShow(),
+ * and is released again in onHide().
+ */
+public interface SceneAware {
+
+    /** Called on the FX thread every time the scene is about to be shown, including the first */
+    void onShow();
+
+    /**
+     * Called on the FX thread when another scene replaces this one, e.g. on
+     * logout. Release what onShow() set up, such as repository listeners.
+     */
+    default void onHide() {}
+}
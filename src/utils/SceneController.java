@@ -8,11 +8,55 @@ import javafx.stage.Screen;
 import javafx.stage.Stage;
 
 import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class SceneController {
 
+    /** Root node and controller of a loaded FXML file */
+    private static class LoadedView {
+        final Parent root;
+        final Object controller;
+
+        LoadedView(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
     private static Stage mainStage;
 
+    // Scenes that have been shown once are kept and reused (FX thread only)
+    private static final Map<String, Scene> scenes = new HashMap<>();
+    private static final Map<String, Object> controllers = new HashMap<>();
+    private static Object shownController;
+
+    // FXML files parsed ahead of time on the preloading thread
+    private static final Map<String, Future<LoadedView>> preloaded = new ConcurrentHashMap<>();
+    private static final ExecutorService preloader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "scene-preloader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Screens likely to be opened from each screen, preloaded as soon as it is shown
+    private static final Map<String, List<String>> NEXT_SCENES = Map.of(
+            "Login.fxml", List.of("AdminDashboard.fxml", "ManagerDashboard.fxml",
+                    "MemberDashboard.fxml", "ClientDashboard.fxml", "Register.fxml"),
+            "Register.fxml", List.of("Login.fxml")
+    );
+
+    private static String stylesheet;
+
+    private static final Metrics.Timer switchTimer = Metrics.timer("SceneController.switchTo");
+    private static final Metrics.Counter sceneLoads = Metrics.counter("SceneController.sceneLoads");
+
     /** Register the primary stage for global scene switching */
     public static void setMainStage(Stage stage) {
         mainStage = stage;
@@ -23,35 +67,59 @@ public class SceneController {
         }
     }
 
+    /** Parse FXML files on a background thread so a later switchTo() only has to show them */
+    public static void preload(String... fxmlFiles) {
+        for (String fxmlFile : fxmlFiles) {
+            if (scenes.containsKey(fxmlFile)) continue;
+            preloaded.computeIfAbsent(fxmlFile, f -> preloader.submit(() -> load(f)));
+        }
+    }
+
+    /** URL of style.css, resolved once; null if missing */
+    public static String stylesheet() {
+        if (stylesheet == null) {
+            URL cssPath = SceneController.class.getResource("/css/style.css");
+            if (cssPath != null) stylesheet = cssPath.toExternalForm();
+        }
+        return stylesheet;
+    }
+
     /** Switch scenes safely with full error handling and maximize */
     public static void switchTo(String fxmlFile) {
+        long start = switchTimer.start();
         try {
             if (mainStage == null) {
                 System.err.println("ERROR: mainStage is NULL. Call SceneController.setMainStage() first!");
                 return;
             }
 
-            // Load FXML
-            URL fxmlPath = SceneController.class.getResource("/fxml/" + fxmlFile);
-            if (fxmlPath == null) {
-                System.err.println("ERROR: FXML NOT FOUND → /fxml/" + fxmlFile);
-                return;
-            }
+            Scene scene = scenes.get(fxmlFile);
+            if (scene == null) {
+                LoadedView view = take(fxmlFile);
+                if (view == null) return;
+                sceneLoads.increment(); // first visit; later ones reuse the scene
 
-            FXMLLoader loader = new FXMLLoader(fxmlPath);
-            Parent root = loader.load();
+                scene = new Scene(view.root);
 
-            Scene scene = new Scene(root);
-
-            // Apply CSS
-            try {
-                URL cssPath = SceneController.class.getResource("/css/style.css");
-                if (cssPath != null) {
-                    scene.getStylesheets().add(cssPath.toExternalForm());
+                // Apply CSS (parsed once per scene, which is kept)
+                String css = stylesheet();
+                if (css != null) {
+                    scene.getStylesheets().add(css);
                     System.out.println("style.css applied");
                 }
-            } catch (Exception e) {
-                System.out.println("Failed to load style.css: " + e.getMessage());
+
+                scenes.put(fxmlFile, scene);
+                controllers.put(fxmlFile, view.controller);
+            }
+
+            // Cached controllers re-read session and repository state; the one being replaced lets go of it
+            Object controller = controllers.get(fxmlFile);
+            if (shownController != controller && shownController instanceof SceneAware) {
+                ((SceneAware) shownController).onHide();
+            }
+            shownController = controller;
+            if (controller instanceof SceneAware) {
+                ((SceneAware) controller).onShow();
             }
 
             // Set scene
@@ -64,10 +132,41 @@ public class SceneController {
 
             System.out.println("Switched to: " + fxmlFile);
 
+            preload(NEXT_SCENES.getOrDefault(fxmlFile, List.of()).toArray(new String[0]));
+
         } catch (Exception e) {
             System.err.println("Scene switching error for file: " + fxmlFile);
             e.printStackTrace();
+        } finally {
+            switchTimer.stop(start);
+        }
+    }
+
+    /** The preloaded view if there is one (waiting for it if still loading), else load it now */
+    private static LoadedView take(String fxmlFile) throws Exception {
+        Future<LoadedView> pending = preloaded.remove(fxmlFile);
+        if (pending != null) {
+            try {
+                LoadedView view = pending.get();
+                if (view != null) return view;
+            } catch (ExecutionException e) {
+                System.err.println("Preloading failed for " + fxmlFile + ", loading again");
+                e.getCause().printStackTrace();
+            }
         }
+        return load(fxmlFile);
+    }
+
+    private static LoadedView load(String fxmlFile) throws Exception {
+        URL fxmlPath = SceneController.class.getResource("/fxml/" + fxmlFile);
+        if (fxmlPath == null) {
+            System.err.println("ERROR: FXML NOT FOUND → /fxml/" + fxmlFile);
+            return null;
+        }
+
+        FXMLLoader loader = new FXMLLoader(fxmlPath);
+        Parent root = loader.load();
+        return new LoadedView(root, loader.getController());
     }
 
     /** Force stage to cover full screen (maximized) */